@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that the {@link IndicatorState} {@link TabStrip} updates on every frame does not allocate
+ * once warmed up. Simulates drag sweeps, flings and rapid tab clicks over strips of 5 to 500 tabs,
+ * with both color blendings, and exits with an error if any of them allocates, so that the build
+ * fails.
+ * Run with: ./gradlew :benchmark:checkAllocations
+ */
+public final class IndicatorAllocationCheck {
+	/**
+	 * The numbers of tabs to simulate
+	 */
+	private static final int[] TAB_COUNTS = {5, 50, 500};
+	/**
+	 * The number of frames of a page scroll during a drag
+	 */
+	private static final int DRAG_FRAMES = 30;
+	/**
+	 * The number of frames of a fling, which crosses several pages
+	 */
+	private static final int FLING_FRAMES = 12;
+	/**
+	 * The number of pages a fling crosses
+	 */
+	private static final int FLING_PAGES = 4;
+	/**
+	 * The number of frames of the animation to a clicked tab
+	 */
+	private static final int CLICK_FRAMES = 15;
+	/**
+	 * The number of runs of a scenario before measuring, so that it is compiled
+	 */
+	private static final int WARM_UP_RUNS = 200;
+	/**
+	 * The height of the simulated strip, and of the band the indicator is drawn in
+	 */
+	private static final int HEIGHT = 48;
+	private static final int BAND_HEIGHT = 3;
+	/**
+	 * The indicator colors, as set through TabLayout.setSelectedIndicatorColors()
+	 */
+	private static final int[] COLORS =
+			{0xFF33B5E5, 0xFFAA66CC, 0xFF99CC00, 0xFFFFBB33, 0xFFFF4444};
+
+	/**
+	 * The thread allocation counter
+	 */
+	private final com.sun.management.ThreadMXBean mThreadBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	/**
+	 * The indicator of the simulated strip
+	 */
+	private final IndicatorState mIndicator;
+	private final int mTabCount;
+	private final int[] mDirtyBounds = new int[4];
+	/**
+	 * Accumulates the results so that the work cannot be optimized away
+	 */
+	private long mSink;
+
+	private IndicatorAllocationCheck(int tabCount, boolean linear) {
+		mTabCount = tabCount;
+		mIndicator = new IndicatorState(new IndicatorState.ColorSource() {
+			@Override
+			public int getIndicatorColor(int position) {
+				return IndicatorMath.getIndicatorColor(COLORS, position);
+			}
+		});
+		mIndicator.setLinearColorBlending(linear);
+
+		// Tabs of varying widths, like titles of different lengths, laid out as TabStrip does
+		mIndicator.setTabCount(tabCount);
+		int left = 0;
+		for (int i = 0; i < tabCount; i++) {
+			int right = left + 120 + (i * 37) % 90;
+			mIndicator.setTabEdges(i, left, right);
+			left = right;
+		}
+		mIndicator.updateBounds();
+	}
+
+	/**
+	 * Runs what TabStrip runs after the indicator moved: the area to redraw, the indicator
+	 * color, and the first tab to draw
+	 */
+	private void frame() {
+		boolean dirty = mIndicator.getDirtyBounds(HEIGHT, BAND_HEIGHT, mDirtyBounds);
+		int color = mIndicator.getColor();
+
+		// The draw-only mode looks up the first visible tab on every draw
+		int firstTab = mIndicator.findFirstTabEndingAfter(mDirtyBounds[0]);
+		mSink += (dirty ? mDirtyBounds[2] : 0) + color + firstTab;
+	}
+
+	/**
+	 * Drags through every page
+	 *
+	 * @return The number of frames
+	 */
+	private int dragSweep() {
+		for (int position = 0; position < mTabCount; position++) {
+			for (int frame = 0; frame < DRAG_FRAMES; frame++) {
+				mIndicator.setSelection(position, (float) frame / DRAG_FRAMES);
+				frame();
+			}
+		}
+		return mTabCount * DRAG_FRAMES;
+	}
+
+	/**
+	 * Flings across several pages at a time
+	 *
+	 * @return The number of frames
+	 */
+	private int flings() {
+		int frames = 0;
+		for (int start = 0; start + FLING_PAGES < mTabCount; start += FLING_PAGES) {
+			for (int frame = 0; frame < FLING_FRAMES; frame++) {
+				float progress = (float) frame * FLING_PAGES / FLING_FRAMES;
+				int position = start + (int) progress;
+				mIndicator.setSelection(position, progress - (int) progress);
+				frame();
+				frames++;
+			}
+		}
+		return frames;
+	}
+
+	/**
+	 * Clicks tabs in quick succession, each click interrupting the animation of the previous one
+	 *
+	 * @return The number of frames
+	 */
+	private int rapidClicks() {
+		int frames = 0;
+		mIndicator.setSelection(0, 0f);
+		for (int click = 1; click < mTabCount; click++) {
+			mIndicator.startTransition((click * 7) % mTabCount);
+			// Only get halfway before the next click
+			for (int frame = 0; frame < CLICK_FRAMES / 2; frame++) {
+				mIndicator.setTransitionFraction((float) frame / CLICK_FRAMES);
+				frame();
+				frames++;
+			}
+		}
+		return frames;
+	}
+
+	/**
+	 * Runs a scenario once warmed up
+	 *
+	 * @param scenario The scenario: 0 for the drag sweep, 1 for the flings, 2 for the clicks
+	 * @return The number of bytes allocated per frame
+	 */
+	private double measure(int scenario) {
+		for (int i = 0; i < WARM_UP_RUNS; i++) {
+			run(scenario);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		// Reading the counter might allocate, so take that out of the measurement
+		long start = mThreadBean.getThreadAllocatedBytes(threadId);
+		long overhead = mThreadBean.getThreadAllocatedBytes(threadId) - start;
+
+		start = mThreadBean.getThreadAllocatedBytes(threadId);
+		int frames = run(scenario);
+		long allocated = mThreadBean.getThreadAllocatedBytes(threadId) - start - overhead;
+		return Math.max(0, allocated) / (double) frames;
+	}
+
+	/**
+	 * @param scenario The scenario
+	 * @return The number of frames it ran
+	 */
+	private int run(int scenario) {
+		switch (scenario) {
+			case 0:
+				return dragSweep();
+			case 1:
+				return flings();
+			default:
+				return rapidClicks();
+		}
+	}
+
+	public static void main(String[] args) {
+		String[] scenarios = {"drag sweep", "flings", "rapid clicks"};
+		boolean failed = false;
+		long sink = 0;
+
+		System.out.println(String.format("%-14s %6s %8s %16s", "Scenario", "Tabs", "Blending",
+				"Bytes per frame"));
+		for (int tabCount : TAB_COUNTS) {
+			for (boolean linear : new boolean[]{false, true}) {
+				IndicatorAllocationCheck check = new IndicatorAllocationCheck(tabCount, linear);
+				for (int scenario = 0; scenario < scenarios.length; scenario++) {
+					double bytesPerFrame = check.measure(scenario);
+					System.out.println(String.format("%-14s %6d %8s %16.2f", scenarios[scenario],
+							tabCount, linear ? "linear" : "sRGB", bytesPerFrame));
+					if (bytesPerFrame > 0) {
+						failed = true;
+					}
+				}
+				sink += check.mSink;
+			}
+		}
+
+		if (failed) {
+			System.err.println("The per-frame indicator state allocates (" + sink + ")");
+			System.exit(1);
+		}
+	}
+}
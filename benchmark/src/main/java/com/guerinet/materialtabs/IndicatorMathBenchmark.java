@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the indicator math that {@link TabStrip} runs on every frame during a page scroll
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndicatorMathBenchmark {
+	/**
+	 * The number of steps of the simulated page scroll
+	 */
+	private static final int STEPS = 64;
+	/**
+	 * The indicator colors, as set through TabLayout.setSelectedIndicatorColors()
+	 */
+	private final int[] mColors = {0xFF33B5E5, 0xFFAA66CC, 0xFF99CC00, 0xFFFFBB33, 0xFFFF4444};
+	/**
+	 * The selection offsets of the simulated page scroll
+	 */
+	private final float[] mOffsets = new float[STEPS];
+	/**
+	 * The current step, so that the arguments change between invocations
+	 */
+	private int mStep;
+
+	@Setup
+	public void setUp() {
+		for (int i = 0; i < STEPS; i++) {
+			mOffsets[i] = (float) i / STEPS;
+		}
+		IndicatorMath.fillColorRamp(mRamp, 0, mColors[0], mColors[1], false);
+	}
+
+	/**
+	 * @return The next step of the simulated page scroll
+	 */
+	private int nextStep() {
+		mStep = (mStep + 1) % STEPS;
+		return mStep;
+	}
+
+	@Benchmark
+	public int setColorAlpha() {
+		return IndicatorMath.setColorAlpha(mColors[nextStep() % mColors.length], (byte) 0x26);
+	}
+
+	/**
+	 * The color ramp between the colors of two tabs, precomputed in sRGB and in linear light
+	 */
+	private final int[] mRamp = new int[IndicatorMath.COLOR_RAMP_STEPS + 1];
+	private final int[] mLinearRamp = new int[IndicatorMath.COLOR_RAMP_STEPS + 1];
+
+	@Benchmark
+	public int blendColors() {
+		int step = nextStep();
+		return IndicatorMath.blendColors(mColors[1], mColors[0],
+				step * IndicatorMath.BLEND_SCALE / STEPS);
+	}
+
+	@Benchmark
+	public int blendColorsLinear() {
+		int step = nextStep();
+		return IndicatorMath.blendColorsLinear(mColors[1], mColors[0],
+				step * IndicatorMath.BLEND_SCALE / STEPS);
+	}
+
+	/**
+	 * The color lookup TabStrip does on every frame
+	 */
+	@Benchmark
+	public int colorRampLookup() {
+		return mRamp[IndicatorMath.getColorRampIndex(mOffsets[nextStep()])];
+	}
+
+	/**
+	 * Rebuilding a ramp, as TabStrip does when the colors change
+	 */
+	@Benchmark
+	public int fillColorRamp() {
+		int step = nextStep();
+		IndicatorMath.fillColorRamp(mLinearRamp, 0, mColors[step % mColors.length], mColors[0],
+				true);
+		return mLinearRamp[step % mLinearRamp.length];
+	}
+
+	@Benchmark
+	public int getIndicatorColor() {
+		return IndicatorMath.getIndicatorColor(mColors, nextStep());
+	}
+
+	/**
+	 * The indicator edges as computed in TabStrip, between a tab at 0-200 and one at 200-320
+	 */
+	@Benchmark
+	public int interpolateIndicator() {
+		float offset = mOffsets[nextStep()];
+		int left = IndicatorMath.interpolate(0, 200, offset);
+		int right = IndicatorMath.interpolate(200, 320, offset);
+		return left ^ right;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the indicator math that {@link TabStrip} runs on the JVM
+ */
+public class IndicatorMathTest {
+	/**
+	 * The height of the simulated strip
+	 */
+	private static final int HEIGHT = 48;
+	/**
+	 * The height of the indicator band at the bottom of the strip
+	 */
+	private static final int BAND_HEIGHT = 3;
+
+	/**
+	 * Simulates the frames of a page scroll across tabs of different widths, and checks that
+	 * every frame only redraws the band covered by the old and the new indicator
+	 */
+	@Test
+	public void dirtyBoundsDuringScroll() {
+		int[] lefts = {0, 120, 300, 340, 600};
+		int[] rights = {120, 300, 340, 600, 700};
+		// The position and the selection offset of each frame, starting from the first tab
+		int[] positions = {0, 0, 1, 1, 3, 4};
+		float[] offsets = {0.25f, 0.5f, 0f, 0.5f, 0f, 0.5f};
+		// The left and the right of the area redrawn by each frame
+		int[][] expected = {{0, 165}, {30, 210}, {60, 300}, {120, 320}, {210, 600}, {340, 700}};
+		int[] bounds = new int[4];
+
+		int oldLeft = lefts[0];
+		int oldRight = rights[0];
+		for (int frame = 0; frame < positions.length; frame++) {
+			int left = IndicatorMath.getIndicatorEdge(lefts, lefts.length, positions[frame],
+					offsets[frame]);
+			int right = IndicatorMath.getIndicatorEdge(rights, rights.length, positions[frame],
+					offsets[frame]);
+
+			IndicatorMath.getIndicatorDirtyBounds(oldLeft, oldRight, left, right, HEIGHT,
+					BAND_HEIGHT, bounds);
+			assertEquals("Frame " + frame, expected[frame][0], bounds[0]);
+			assertEquals("Frame " + frame, HEIGHT - BAND_HEIGHT, bounds[1]);
+			assertEquals("Frame " + frame, expected[frame][1], bounds[2]);
+			assertEquals("Frame " + frame, HEIGHT, bounds[3]);
+
+			oldLeft = left;
+			oldRight = right;
+		}
+	}
+
+	/**
+	 * An indicator without width, when there are no tabs, does not extend the redrawn area
+	 */
+	@Test
+	public void dirtyBoundsIgnoreEmptyIndicator() {
+		int[] bounds = new int[4];
+
+		IndicatorMath.getIndicatorDirtyBounds(0, 0, 200, 300, HEIGHT, BAND_HEIGHT, bounds);
+		assertEquals(200, bounds[0]);
+		assertEquals(300, bounds[2]);
+
+		IndicatorMath.getIndicatorDirtyBounds(200, 300, 0, 0, HEIGHT, BAND_HEIGHT, bounds);
+		assertEquals(200, bounds[0]);
+		assertEquals(300, bounds[2]);
+
+		IndicatorMath.getIndicatorDirtyBounds(0, 0, 0, 0, HEIGHT, BAND_HEIGHT, bounds);
+		assertEquals(bounds[0], bounds[2]);
+	}
+
+	/**
+	 * The fractions of the interpolators that overshoot or anticipate stay within the color ramp
+	 */
+	@Test
+	public void colorRampIndexClamped() {
+		assertEquals(0, IndicatorMath.getColorRampIndex(-0.15f));
+		assertEquals(0, IndicatorMath.getColorRampIndex(0f));
+		assertEquals(IndicatorMath.COLOR_RAMP_STEPS / 2, IndicatorMath.getColorRampIndex(0.5f));
+		assertEquals(IndicatorMath.COLOR_RAMP_STEPS, IndicatorMath.getColorRampIndex(1f));
+		assertEquals(IndicatorMath.COLOR_RAMP_STEPS, IndicatorMath.getColorRampIndex(1.1f));
+	}
+}
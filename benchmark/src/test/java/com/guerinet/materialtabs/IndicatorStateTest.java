@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the indicator state that {@link TabStrip} updates on every frame
+ */
+public class IndicatorStateTest {
+	private static final int[] LEFTS = {0, 100, 250, 300};
+	private static final int[] RIGHTS = {100, 250, 300, 500};
+	private static final int[] COLORS = {0xFFFF0000, 0xFF00FF00, 0xFF0000FF};
+	private static final int HEIGHT = 48;
+	private static final int BAND_HEIGHT = 3;
+
+	private IndicatorState mIndicator;
+	private final int[] mBounds = new int[4];
+
+	@Before
+	public void setUp() {
+		mIndicator = new IndicatorState(new IndicatorState.ColorSource() {
+			@Override
+			public int getIndicatorColor(int position) {
+				return IndicatorMath.getIndicatorColor(COLORS, position);
+			}
+		});
+		mIndicator.setTabCount(LEFTS.length);
+		for (int i = 0; i < LEFTS.length; i++) {
+			mIndicator.setTabEdges(i, LEFTS[i], RIGHTS[i]);
+		}
+		mIndicator.updateBounds();
+	}
+
+	/**
+	 * Following a page scroll moves the indicator between the tabs, blends their colors, and
+	 * redraws the band covered by the old and new indicators
+	 */
+	@Test
+	public void pageScroll() {
+		mIndicator.setSelection(0, 0.5f);
+		assertEquals(50, mIndicator.getLeft());
+		assertEquals(175, mIndicator.getRight());
+		assertEquals(IndicatorMath.blendColors(COLORS[1], COLORS[0],
+				IndicatorMath.BLEND_SCALE / 2), mIndicator.getColor());
+
+		assertTrue(mIndicator.getDirtyBounds(HEIGHT, BAND_HEIGHT, mBounds));
+		assertEquals(0, mBounds[0]);
+		assertEquals(HEIGHT - BAND_HEIGHT, mBounds[1]);
+		assertEquals(175, mBounds[2]);
+		assertEquals(HEIGHT, mBounds[3]);
+	}
+
+	/**
+	 * A transition interrupted by another one starts the new one from where the indicator was,
+	 * with the color it had
+	 */
+	@Test
+	public void interruptedTransition() {
+		assertTrue(mIndicator.startTransition(3));
+		mIndicator.setTransitionFraction(0.5f);
+		final int left = mIndicator.getLeft();
+		final int right = mIndicator.getRight();
+		final int color = mIndicator.getColor();
+		assertEquals(150, left);
+		assertEquals(300, right);
+
+		assertTrue(mIndicator.startTransition(1));
+		mIndicator.setTransitionFraction(0f);
+		assertEquals(left, mIndicator.getLeft());
+		assertEquals(right, mIndicator.getRight());
+		assertEquals(color, mIndicator.getColor());
+
+		mIndicator.setTransitionFraction(1f);
+		assertEquals(LEFTS[1], mIndicator.getLeft());
+		assertEquals(RIGHTS[1], mIndicator.getRight());
+		assertEquals(COLORS[1], mIndicator.getColor());
+
+		// The tabs that have not been laid out cannot be transitioned to
+		assertFalse(mIndicator.startTransition(LEFTS.length));
+	}
+
+	/**
+	 * A transition driven by an overshooting interpolator moves the indicator past its target,
+	 * but keeps the target color
+	 */
+	@Test
+	public void overshootingTransition() {
+		assertTrue(mIndicator.startTransition(1));
+		mIndicator.setTransitionFraction(-0.1f);
+		assertEquals(COLORS[0], mIndicator.getColor());
+
+		mIndicator.setTransitionFraction(1.1f);
+		assertEquals(110, mIndicator.getLeft());
+		assertEquals(COLORS[1], mIndicator.getColor());
+	}
+
+	/**
+	 * The indicator disappears when the selected tab is removed
+	 */
+	@Test
+	public void removedSelectedTab() {
+		mIndicator.setSelection(3, 0f);
+		mIndicator.setTabCount(2);
+		mIndicator.updateBounds();
+		assertFalse(mIndicator.hasIndicator());
+		assertEquals(0, mIndicator.getColor());
+		assertEquals(mIndicator.getLeft(), mIndicator.getRight());
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Inflates tab views on a background thread and delivers them in order on the main thread
+ */
+class AsyncTabInflater {
+	/**
+	 * Callback to implement to receive the inflated tab views
+	 */
+	interface Callback {
+		/**
+		 * Called on the main thread when a tab view has been inflated
+		 *
+		 * @param tabView The inflated tab view
+		 */
+		void onTabViewInflated(View tabView);
+	}
+	/**
+	 * The single background thread shared by all of the inflaters, which keeps the views in order
+	 */
+	private static Executor sExecutor;
+	/**
+	 * The {@link Handler} used to deliver the views on the main thread
+	 */
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	/**
+	 * Incremented when the pending inflations are cancelled, so that they are not delivered
+	 */
+	private volatile int mGeneration;
+
+	/**
+	 * @return The executor to inflate the views on
+	 */
+	private static synchronized Executor getExecutor(){
+		if(sExecutor == null){
+			sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory(){
+				@Override
+				public Thread newThread(Runnable runnable){
+					Thread thread = new Thread(runnable, "AsyncTabInflater");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sExecutor;
+	}
+
+	/**
+	 * Inflates the given number of views in the background
+	 *
+	 * @param inflater The {@link LayoutInflater} to use
+	 * @param layoutId The Id of the layout to inflate
+	 * @param parent   The parent the views will be added to, used for their layout params
+	 * @param count    The number of views to inflate
+	 * @param callback The {@link Callback} to call on the main thread for each inflated view
+	 */
+	void inflate(final LayoutInflater inflater, final int layoutId, final ViewGroup parent,
+			final int count, final Callback callback){
+		final int generation = mGeneration;
+
+		getExecutor().execute(new Runnable(){
+			@Override
+			public void run(){
+				for(int i = 0; i < count && generation == mGeneration; i ++){
+					final View tabView = inflater.inflate(layoutId, parent, false);
+
+					mHandler.post(new Runnable(){
+						@Override
+						public void run(){
+							//Drop the view if the inflation was cancelled in the meantime
+							if(generation == mGeneration){
+								callback.onTabViewInflated(tabView);
+							}
+						}
+					});
+				}
+			}
+		});
+	}
+
+	/**
+	 * Cancels the pending inflations. Must be called on the main thread.
+	 */
+	void cancel(){
+		mGeneration ++;
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.util.LruCache;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Process-wide cache of the tab icons, shared by all of the {@link TabLayout}s. The icons are
+ * kept by resource Id, theme and screen density, and the drawables handed out for the same icon
+ * share the same constant state. The cache is emptied when the configuration changes and when the
+ * system is low on memory.
+ */
+public final class IconCache {
+	/**
+	 * The maximum number of icons kept
+	 */
+	private static final int MAX_SIZE = 32;
+	/**
+	 * The cached icons, keyed by resource Id and theme
+	 */
+	private static final LruCache<Long, Entry> sCache = new LruCache<>(MAX_SIZE);
+	/**
+	 * The number of times a cached icon was handed out, and an icon was loaded from the resources
+	 */
+	private static int sHitCount;
+	private static int sMissCount;
+	/**
+	 * True if the cache has been registered for the memory callbacks, false otherwise
+	 */
+	private static boolean sRegistered;
+
+	private IconCache(){}
+
+	/**
+	 * @param context The context
+	 * @param iconId  The icon drawable Id
+	 * @return A drawable for the given icon, sharing its constant state with the other drawables
+	 *  handed out for the same icon in the same theme
+	 */
+	static Drawable getDrawable(Context context, int iconId){
+		register(context);
+
+		Resources resources = context.getResources();
+		Resources.Theme theme = context.getTheme();
+		int density = resources.getDisplayMetrics().densityDpi;
+		//The identity of the theme can be shared by two themes, the entry tells them apart
+		long key = ((long) iconId << 32) | (System.identityHashCode(theme) & 0xFFFFFFFFL);
+
+		Entry entry = sCache.get(key);
+		if(entry != null && entry.mTheme.get() == theme && entry.mDensity == density){
+			sHitCount ++;
+			return entry.mState.newDrawable(resources);
+		}
+		sMissCount ++;
+
+		Drawable drawable = ContextCompat.getDrawable(context, iconId);
+		Drawable.ConstantState state = drawable.getConstantState();
+		//Drawables without a constant state cannot be shared
+		if(state != null){
+			sCache.put(key, new Entry(theme, density, state));
+		}
+		return drawable;
+	}
+
+	/**
+	 * Registers the cache to be trimmed when the system is low on memory
+	 *
+	 * @param context The context
+	 */
+	private static synchronized void register(Context context){
+		//The memory callbacks can only be registered on API 14+
+		if(sRegistered || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH){
+			return;
+		}
+		sRegistered = true;
+
+		context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2(){
+			@Override
+			public void onTrimMemory(int level){
+				if(level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL){
+					clear();
+				}
+				else if(level >= TRIM_MEMORY_RUNNING_LOW){
+					sCache.trimToSize(sCache.maxSize() / 2);
+				}
+			}
+
+			@Override
+			public void onConfigurationChanged(Configuration newConfig){
+				//The icons might have resources specific to the old configuration
+				clear();
+			}
+
+			@Override
+			public void onLowMemory(){
+				clear();
+			}
+		});
+	}
+
+	/**
+	 * Removes all of the cached icons
+	 */
+	public static void clear(){
+		sCache.evictAll();
+	}
+
+	/**
+	 * @return The number of times a cached icon was handed out
+	 */
+	public static int getHitCount(){
+		return sHitCount;
+	}
+
+	/**
+	 * @return The number of times an icon had to be loaded from the resources
+	 */
+	public static int getMissCount(){
+		return sMissCount;
+	}
+
+	/**
+	 * A cached icon, with the theme it was loaded in
+	 */
+	private static class Entry {
+		/**
+		 * The theme, held weakly as it holds its context
+		 */
+		private final WeakReference<Resources.Theme> mTheme;
+		private final int mDensity;
+		private final Drawable.ConstantState mState;
+
+		private Entry(Resources.Theme theme, int density, Drawable.ConstantState state){
+			mTheme = new WeakReference<>(theme);
+			mDensity = density;
+			mState = state;
+		}
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+/**
+ * The color and position math used to draw the selection indicator and to find the tabs. This
+ * does not depend on any Android class so that it can be benchmarked and checked for allocations
+ * on the JVM (see the benchmark module).
+ */
+final class IndicatorMath {
+	private IndicatorMath(){}
+
+	/**
+	 * Set the alpha value of the {@code color} to be the given {@code alpha} value.
+	 */
+	static int setColorAlpha(int color, byte alpha) {
+		return (alpha << 24) | (color & 0x00FFFFFF);
+	}
+
+	/**
+	 * The number of steps of the color ramps between two tabs. The ramps have one more color so
+	 * that they include both ends.
+	 */
+	static final int COLOR_RAMP_STEPS = 32;
+	/**
+	 * The weight of {@code color1} that returns {@code color1} in the blends
+	 */
+	static final int BLEND_SCALE = 256;
+
+	/**
+	 * Blend {@code color1} and {@code color2} with the given weight, channel by channel
+	 * including alpha, in integer fixed-point.
+	 *
+	 * @param weight of {@code color1}, out of {@link #BLEND_SCALE}. {@link #BLEND_SCALE} will
+	 *               return {@code color1}, half of it will give an even blend, 0 will return
+	 *               {@code color2}.
+	 */
+	static int blendColors(int color1, int color2, int weight) {
+		final int inverseWeight = BLEND_SCALE - weight;
+		int color = 0;
+		for (int shift = 0; shift < 32; shift += 8) {
+			final int channel = ((color1 >>> shift) & 0xFF) * weight +
+					((color2 >>> shift) & 0xFF) * inverseWeight + BLEND_SCALE / 2;
+			color |= (channel >> 8) << shift;
+		}
+		return color;
+	}
+
+	/**
+	 * Same as {@link #blendColors(int, int, int)}, but blends the color channels in linear light
+	 * instead of sRGB, which keeps the blends from going darker between saturated colors. Alpha
+	 * is blended as is.
+	 */
+	static int blendColorsLinear(int color1, int color2, int weight) {
+		final int inverseWeight = BLEND_SCALE - weight;
+		final int alpha = ((color1 >>> 24) * weight + (color2 >>> 24) * inverseWeight +
+				BLEND_SCALE / 2) >> 8;
+		int color = alpha << 24;
+		for (int shift = 0; shift < 24; shift += 8) {
+			final int linear = (LinearTables.TO_LINEAR[(color1 >> shift) & 0xFF] * weight +
+					LinearTables.TO_LINEAR[(color2 >> shift) & 0xFF] * inverseWeight +
+					BLEND_SCALE / 2) >> 8;
+			color |= (LinearTables.TO_SRGB[linear] & 0xFF) << shift;
+		}
+		return color;
+	}
+
+	/**
+	 * Fills a color ramp from one color to another, so that the blends can be looked up with
+	 * {@link #getColorRampIndex(float)} instead of being computed on every frame
+	 *
+	 * @param ramp   The array to fill
+	 * @param offset The index of the first color of the ramp in the array, which needs
+	 *               {@link #COLOR_RAMP_STEPS} + 1 colors from there
+	 * @param from   The color at the start of the ramp
+	 * @param to     The color at the end of the ramp
+	 * @param linear True to blend in linear light, false to blend in sRGB
+	 */
+	static void fillColorRamp(int[] ramp, int offset, int from, int to, boolean linear) {
+		for (int i = 0; i <= COLOR_RAMP_STEPS; i++) {
+			final int weight = i * BLEND_SCALE / COLOR_RAMP_STEPS;
+			ramp[offset + i] = linear
+					? blendColorsLinear(to, from, weight)
+					: blendColors(to, from, weight);
+		}
+	}
+
+	/**
+	 * @param fraction How far along the ramp, normally between 0 and 1. Interpolators that
+	 *                 overshoot or anticipate go past either end, which is clamped to the end.
+	 * @return The index of the closest color within a color ramp
+	 */
+	static int getColorRampIndex(float fraction) {
+		if (fraction <= 0f) {
+			return 0;
+		}
+		if (fraction >= 1f) {
+			return COLOR_RAMP_STEPS;
+		}
+		return (int) (fraction * COLOR_RAMP_STEPS + 0.5f);
+	}
+
+	/**
+	 * @param colors   The colors, treated as a circular array
+	 * @param position The tab position
+	 * @return The color to use for the given tab position
+	 */
+	static int getIndicatorColor(int[] colors, int position) {
+		return colors[position % colors.length];
+	}
+
+	/**
+	 * Interpolates the edge of the indicator between two tabs.
+	 *
+	 * @param from  The edge of the selected tab
+	 * @param to    The edge of the next tab
+	 * @param ratio The selection offset. 0.0 will return {@code from}, 1.0 will return {@code to}.
+	 */
+	static int interpolate(int from, int to, float ratio) {
+		return (int) (ratio * to + (1.0f - ratio) * from);
+	}
+
+	/**
+	 * @param edges    The left or right edges of the tabs
+	 * @param count    The number of tabs
+	 * @param position The selected tab
+	 * @param offset   The selection offset toward the next tab
+	 * @return The left or right edge of the indicator
+	 */
+	static int getIndicatorEdge(int[] edges, int count, int position, float offset) {
+		if (offset > 0f && position < count - 1) {
+			// The selection is partway between the tabs
+			return interpolate(edges[position], edges[position + 1], offset);
+		}
+		return edges[position];
+	}
+
+	/**
+	 * Computes the area to redraw after the indicator moved: the union of the bands covered by
+	 * the old and the new indicator. An indicator without width covers nothing.
+	 *
+	 * @param oldLeft    The left edge of the indicator before the change
+	 * @param oldRight   The right edge of the indicator before the change
+	 * @param newLeft    The left edge of the indicator after the change
+	 * @param newRight   The right edge of the indicator after the change
+	 * @param height     The height of the strip
+	 * @param bandHeight The height of the band at the bottom of the strip the indicator is in
+	 * @param bounds     Filled with the left, top, right and bottom of the area, which is empty
+	 *                   (left == right) if there is nothing to redraw
+	 */
+	static void getIndicatorDirtyBounds(int oldLeft, int oldRight, int newLeft, int newRight,
+			int height, int bandHeight, int[] bounds) {
+		if (oldLeft >= oldRight) {
+			bounds[0] = newLeft;
+			bounds[2] = Math.max(newLeft, newRight);
+		} else if (newLeft >= newRight) {
+			bounds[0] = oldLeft;
+			bounds[2] = oldRight;
+		} else {
+			bounds[0] = Math.min(oldLeft, newLeft);
+			bounds[2] = Math.max(oldRight, newRight);
+		}
+		bounds[1] = height - bandHeight;
+		bounds[3] = height;
+	}
+
+	/**
+	 * @param rights The right edges of the tabs, which are sorted since the tabs are laid out
+	 *               from left to right
+	 * @param count  The number of tabs
+	 * @param x      The x coordinate
+	 * @return The first tab that ends after the given coordinate, {@code count} if none
+	 */
+	static int findFirstTabEndingAfter(int[] rights, int count, float x) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (rights[mid] > x) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * The conversions between sRGB and linear light, only built if linear blending is used
+	 */
+	private static final class LinearTables {
+		/**
+		 * The number of levels of the linear values, which need more precision than 8 bits to
+		 * keep the dark colors apart
+		 */
+		private static final int LEVELS = 4096;
+
+		/**
+		 * The linear value of each sRGB channel value
+		 */
+		static final short[] TO_LINEAR = new short[256];
+		/**
+		 * The sRGB channel value of each linear value
+		 */
+		static final byte[] TO_SRGB = new byte[LEVELS];
+
+		static {
+			for (int i = 0; i < TO_LINEAR.length; i++) {
+				final double srgb = i / 255.0;
+				final double linear = srgb <= 0.04045
+						? srgb / 12.92
+						: Math.pow((srgb + 0.055) / 1.055, 2.4);
+				TO_LINEAR[i] = (short) Math.round(linear * (LEVELS - 1));
+			}
+			for (int i = 0; i < TO_SRGB.length; i++) {
+				final double linear = (double) i / (LEVELS - 1);
+				final double srgb = linear <= 0.0031308
+						? linear * 12.92
+						: 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+				TO_SRGB[i] = (byte) Math.round(srgb * 255);
+			}
+		}
+
+		private LinearTables() {}
+	}
+}
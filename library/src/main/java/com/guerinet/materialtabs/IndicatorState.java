@@ -0,0 +1,369 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+/**
+ * The state of the selection indicator of a {@link TabStrip}: the cached tab edges, the selection
+ * or the transition the indicator follows, and the resulting indicator edges and color. This is
+ * everything the strip computes on every frame of a page scroll or of a tab animation. It does
+ * not depend on Android, so that it can be checked on the JVM.
+ */
+final class IndicatorState {
+	/**
+	 * Gives the indicator color of each tab
+	 */
+	interface ColorSource {
+		/**
+		 * @param position The tab position
+		 * @return The indicator color of the tab
+		 */
+		int getIndicatorColor(int position);
+	}
+
+	private final ColorSource mColorSource;
+
+	/**
+	 * The left and right edges of the tabs, updated when the tabs are laid out
+	 */
+	private int[] mTabLefts = new int[0];
+	private int[] mTabRights = new int[0];
+	private int mTabCount;
+
+	private int mSelectedPosition;
+	private float mSelectionOffset;
+
+	/**
+	 * The position the indicator is moving to with a transition, -1 if none. The transition
+	 * starts from the edges and the color the indicator had when it started.
+	 */
+	private int mTransitionPosition = -1;
+	private int mTransitionFromLeft;
+	private int mTransitionFromRight;
+	private float mTransitionFraction;
+
+	/**
+	 * The left and right edges of the indicator, and the ones it had before the last change
+	 */
+	private int mLeft;
+	private int mRight;
+	private int mOldLeft;
+	private int mOldRight;
+
+	/**
+	 * The indicator color of each tab, and the offsets in the color ramps of the ramp toward
+	 * the next tab, -1 if both tabs have the same color. The ramps are rebuilt when the colors or
+	 * the number of tabs change, so that the blends are looked up instead of being computed on
+	 * every frame.
+	 */
+	private int[] mTabColors = new int[0];
+	private int[] mColorRampOffsets = new int[0];
+	private int[] mColorRamps = new int[0];
+	private boolean mColorRampsChanged = true;
+	private boolean mLinearColorBlending;
+	/**
+	 * The color ramp of the current transition, from the color the indicator had when it started
+	 */
+	private final int[] mTransitionColorRamp = new int[IndicatorMath.COLOR_RAMP_STEPS + 1];
+
+	/**
+	 * @param colorSource Gives the indicator color of each tab
+	 */
+	IndicatorState(ColorSource colorSource) {
+		mColorSource = colorSource;
+	}
+
+	/**
+	 * Sets the number of tabs before their edges are set with
+	 * {@link #setTabEdges(int, int, int)}
+	 *
+	 * @param count The number of tabs
+	 */
+	void setTabCount(int count) {
+		if (mTabLefts.length < count) {
+			mTabLefts = new int[count];
+			mTabRights = new int[count];
+		}
+		if (count != mTabCount) {
+			mTabCount = count;
+			mColorRampsChanged = true;
+		}
+	}
+
+	/**
+	 * @param position The tab position
+	 * @param left     The left edge of the tab
+	 * @param right    The right edge of the tab
+	 */
+	void setTabEdges(int position, int left, int right) {
+		mTabLefts[position] = left;
+		mTabRights[position] = right;
+	}
+
+	/**
+	 * @return The number of tabs as of the last layout
+	 */
+	int getTabCount() {
+		return mTabCount;
+	}
+
+	/**
+	 * @param position The tab position, which must be less than the number of tabs
+	 * @return The left edge of the tab as of the last layout
+	 */
+	int getTabLeft(int position) {
+		return mTabLefts[position];
+	}
+
+	/**
+	 * @param position The tab position, which must be less than the number of tabs
+	 * @return The right edge of the tab as of the last layout
+	 */
+	int getTabRight(int position) {
+		return mTabRights[position];
+	}
+
+	/**
+	 * @param x The x coordinate within the strip
+	 * @return The first tab that ends after the given coordinate, the number of tabs if none
+	 */
+	int findFirstTabEndingAfter(float x) {
+		return IndicatorMath.findFirstTabEndingAfter(mTabRights, mTabCount, x);
+	}
+
+	/**
+	 * @param x The x coordinate within the strip
+	 * @return The first tab that starts after the given coordinate, the number of tabs if none
+	 */
+	int findFirstTabStartingAfter(float x) {
+		// The left edges are sorted as well
+		return IndicatorMath.findFirstTabEndingAfter(mTabLefts, mTabCount, x);
+	}
+
+	/**
+	 * @return The selected tab
+	 */
+	int getSelectedPosition() {
+		return mSelectedPosition;
+	}
+
+	/**
+	 * @return True if the selected tab has been laid out, false otherwise
+	 */
+	boolean hasIndicator() {
+		return mSelectedPosition < mTabCount;
+	}
+
+	/**
+	 * @return The left edge of the indicator
+	 */
+	int getLeft() {
+		return mLeft;
+	}
+
+	/**
+	 * @return The right edge of the indicator
+	 */
+	int getRight() {
+		return mRight;
+	}
+
+	/**
+	 * Follows a page scroll, which ends any transition
+	 *
+	 * @param position The selected tab
+	 * @param offset   The selection offset toward the next tab, between 0 and 1
+	 */
+	void setSelection(int position, float offset) {
+		mTransitionPosition = -1;
+		mSelectedPosition = position;
+		mSelectionOffset = offset;
+		updateBounds();
+	}
+
+	/**
+	 * Starts moving the indicator from wherever it currently is to the given tab. The
+	 * transition is then driven with {@link #setTransitionFraction(float)}, and ends with the
+	 * next call to {@link #setSelection(int, float)}.
+	 *
+	 * @param position The position of the tab to move to
+	 * @return True if the transition was started, false if the tab has not been laid out yet
+	 */
+	boolean startTransition(int position) {
+		if (position < 0 || position >= mTabCount) {
+			return false;
+		}
+
+		// Start from the current state, which might be partway through another transition
+		mTransitionFromLeft = mLeft;
+		mTransitionFromRight = mRight;
+		final int fromColor = getColor();
+		mTransitionFraction = 0f;
+		mTransitionPosition = position;
+
+		mSelectedPosition = position;
+		mSelectionOffset = 0f;
+
+		if (mColorRampsChanged) {
+			updateColorRamps();
+		}
+		IndicatorMath.fillColorRamp(mTransitionColorRamp, 0, fromColor, mTabColors[position],
+				mLinearColorBlending);
+		return true;
+	}
+
+	/**
+	 * @param fraction How far along the transition is, between 0 and 1, or past either end with an
+	 *                 interpolator that anticipates or overshoots
+	 */
+	void setTransitionFraction(float fraction) {
+		mTransitionFraction = fraction;
+		updateBounds();
+	}
+
+	/**
+	 * Updates the indicator edges from the selected position, the selection offset and the
+	 * cached tab edges
+	 */
+	void updateBounds() {
+		mOldLeft = mLeft;
+		mOldRight = mRight;
+
+		// The tabs might have been removed since the selection was last updated
+		if (mSelectedPosition >= mTabCount) {
+			mLeft = 0;
+			mRight = 0;
+			return;
+		}
+
+		if (mTransitionPosition != -1) {
+			// The indicator is moving to the selected tab
+			mLeft = IndicatorMath.interpolate(mTransitionFromLeft, mTabLefts[mSelectedPosition],
+					mTransitionFraction);
+			mRight = IndicatorMath.interpolate(mTransitionFromRight,
+					mTabRights[mSelectedPosition], mTransitionFraction);
+		} else {
+			mLeft = IndicatorMath.getIndicatorEdge(mTabLefts, mTabCount, mSelectedPosition,
+					mSelectionOffset);
+			mRight = IndicatorMath.getIndicatorEdge(mTabRights, mTabCount, mSelectedPosition,
+					mSelectionOffset);
+		}
+	}
+
+	/**
+	 * Gets the area to redraw after the last change of the indicator: the union of the old and
+	 * the new indicators, in the band at the bottom of the strip
+	 *
+	 * @param height     The height of the strip
+	 * @param bandHeight The height of the band the indicator is drawn in
+	 * @param bounds     The array to put the left, top, right and bottom of the area in
+	 * @return True if there is anything to redraw, false otherwise
+	 */
+	boolean getDirtyBounds(int height, int bandHeight, int[] bounds) {
+		IndicatorMath.getIndicatorDirtyBounds(mOldLeft, mOldRight, mLeft, mRight, height,
+				bandHeight, bounds);
+		return bounds[0] != bounds[2];
+	}
+
+	/**
+	 * Rebuilds the color ramps before the next color is looked up, after the tab colors changed.
+	 * The indicator keeps its edges.
+	 */
+	void onColorsChanged() {
+		mColorRampsChanged = true;
+		mOldLeft = mLeft;
+		mOldRight = mRight;
+	}
+
+	/**
+	 * @param linear True to blend the indicator colors in linear light, false to blend them in
+	 *               sRGB
+	 * @return True if the blending changed, false otherwise
+	 */
+	boolean setLinearColorBlending(boolean linear) {
+		if (linear == mLinearColorBlending) {
+			return false;
+		}
+		mLinearColorBlending = linear;
+		onColorsChanged();
+		return true;
+	}
+
+	/**
+	 * @return The color of the indicator for the current selection, blended between the
+	 * selected tab and the next one, or with the color the current transition started from
+	 */
+	int getColor() {
+		if (mSelectedPosition >= mTabCount) {
+			return 0;
+		}
+		if (mColorRampsChanged) {
+			updateColorRamps();
+		}
+
+		if (mTransitionPosition != -1) {
+			return mTransitionColorRamp[IndicatorMath.getColorRampIndex(mTransitionFraction)];
+		}
+		final int rampOffset = mColorRampOffsets[mSelectedPosition];
+		if (mSelectionOffset > 0f && rampOffset != -1) {
+			return mColorRamps[rampOffset + IndicatorMath.getColorRampIndex(mSelectionOffset)];
+		}
+		return mTabColors[mSelectedPosition];
+	}
+
+	/**
+	 * Looks up the indicator color of each tab, and builds the color ramps between the
+	 * neighbouring tabs that have different colors
+	 */
+	private void updateColorRamps() {
+		mColorRampsChanged = false;
+
+		if (mTabColors.length < mTabCount) {
+			mTabColors = new int[mTabCount];
+			mColorRampOffsets = new int[mTabCount];
+		}
+		for (int i = 0; i < mTabCount; i++) {
+			mTabColors[i] = mColorSource.getIndicatorColor(i);
+		}
+
+		final int rampSize = IndicatorMath.COLOR_RAMP_STEPS + 1;
+		int rampsLength = 0;
+		for (int i = 0; i < mTabCount; i++) {
+			if (i < mTabCount - 1 && mTabColors[i] != mTabColors[i + 1]) {
+				mColorRampOffsets[i] = rampsLength;
+				rampsLength += rampSize;
+			} else {
+				mColorRampOffsets[i] = -1;
+			}
+		}
+
+		if (mColorRamps.length < rampsLength) {
+			mColorRamps = new int[rampsLength];
+		}
+		for (int i = 0; i < mTabCount; i++) {
+			if (mColorRampOffsets[i] != -1) {
+				IndicatorMath.fillColorRamp(mColorRamps, mColorRampOffsets[i], mTabColors[i],
+						mTabColors[i + 1], mLinearColorBlending);
+			}
+		}
+
+		// The transition keeps the color it started from, but moves to the new target color
+		if (mTransitionPosition != -1 && mTransitionPosition < mTabCount) {
+			IndicatorMath.fillColorRamp(mTransitionColorRamp, 0, mTransitionColorRamp[0],
+					mTabColors[mTransitionPosition], mLinearColorBlending);
+		}
+	}
+}
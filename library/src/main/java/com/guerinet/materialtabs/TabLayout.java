@@ -17,24 +17,43 @@
 package com.guerinet.materialtabs;
 
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.database.DataSetObserver;
+import android.graphics.Paint;
 import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
+import android.text.Spanned;
+import android.text.TextPaint;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.animation.AnimationUtils;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.widget.FrameLayout;
 import android.widget.HorizontalScrollView;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -53,11 +72,60 @@ import java.util.List;
  * <p>
  * The views used as tabs can be customized by calling {@link #setCustomTabView(int, int)},
  * providing the layout ID of your custom layout.
+ * <p>
+ * For a large number of tabs, {@link #setVirtualized(boolean)} only creates the tab views that
+ * are on screen.
  */
 public class TabLayout extends HorizontalScrollView {
+	/**
+	 * Listener to implement to know when the tab views that are inflated in the background have
+	 *  all been added. Set with {@link #setAsyncInflation(boolean, OnTabsInflatedListener)}.
+	 */
+	public interface OnTabsInflatedListener {
+		/**
+		 * Called when all of the tabs have their tab view
+		 */
+		void onTabsInflated();
+	}
+	/**
+	 * Listener to implement to receive performance metrics about the tabs. Set with
+	 *  {@link #setMetricsListener(MetricsListener)}. The metrics are not collected when there
+	 *  is no listener.
+	 */
+	public interface MetricsListener {
+		/**
+		 * Called when the tabs have been built by a call to addTabs() or
+		 *  {@link #setViewPager(ViewPager)}, before the initial tab is clicked
+		 *
+		 * @param inflationNanos The time spent creating new tab views, in nanoseconds
+		 * @param bindingNanos   The rest of the time spent building the tabs, in nanoseconds
+		 * @param inflatedViews  The number of tab views that were created
+		 * @param reusedViews    The number of existing tab views that were reused, including the
+		 *                       ones taken from the {@link TabViewPool}
+		 */
+		void onTabsBuilt(long inflationNanos, long bindingNanos, int inflatedViews,
+				int reusedViews);
+
+		/**
+		 * Called when the tab strip has drawn its indicator and border
+		 *
+		 * @param drawNanos The time spent in the tab strip's onDraw(), in nanoseconds
+		 */
+		void onStripDrawn(long drawNanos);
+
+		/**
+		 * Called on each frame where the indicator and the scroll position were updated
+		 *  following a page scroll
+		 *
+		 * @param scrollToTabCalls The number of times the layout was scrolled to a tab since
+		 *                         the last call
+		 */
+		void onScrollFrame(int scrollToTabCalls);
+	}
 	/**
 	 * Allows complete control over the colors drawn in the tab layout. Set with
-	 * {@link #setCustomTabColorizer(TabColorizer)}.
+	 * {@link #setCustomTabColorizer(TabColorizer)}. The colors are looked up when the colorizer
+	 * is set and when the number of tabs changes, set the colorizer again to change them.
 	 */
 	public interface TabColorizer {
 		/**
@@ -65,25 +133,84 @@ public class TabLayout extends HorizontalScrollView {
 		 */
 		int getIndicatorColor(int position);
 	}
+	/**
+	 * Provides the tab titles. The titles are only requested when their tab is bound, so the
+	 *  titles of a large number of tabs do not need to be built up front.
+	 *  Used with {@link #addTabs(Callback, int, TitleProvider)}.
+	 */
+	public interface TitleProvider {
+		/**
+		 * @return The number of tabs
+		 */
+		int getCount();
+
+		/**
+		 * @param position The tab position
+		 * @return The title of the tab at the given position, null for an empty title
+		 */
+		CharSequence getTitle(int position);
+	}
+	/**
+	 * Listener to implement to start loading a page before it is selected. Set with
+	 *  {@link #setOnPrefetchListener(OnPrefetchListener, float)}.
+	 */
+	public interface OnPrefetchListener {
+		/**
+		 * Called once per page when the user drags toward it past the threshold, or presses
+		 *  its tab
+		 *
+		 * @param position The position of the page that is likely to be selected next
+		 */
+		void onPrefetch(int position);
+	}
 	/**
 	 * Dimensions used throughout the class
 	 */
 	private static final int TITLE_OFFSET_DIPS = 24;
 	private static final int TAB_VIEW_PADDING_DIPS = 16;
 	private static final int TAB_VIEW_TEXT_SIZE_SP = 12;
+	/**
+	 * The estimated width of a virtualized tab whose title has not been requested yet
+	 */
+	private static final int TAB_VIEW_ESTIMATED_WIDTH_DIPS = 96;
+	/**
+	 * The default duration of the tab animation, in milliseconds
+	 */
+	private static final int DEFAULT_TAB_ANIMATION_DURATION = 250;
+	/**
+	 * The empty array of {@link ViewPager.OnPageChangeListener}s
+	 */
+	private static final ViewPager.OnPageChangeListener[] NO_PAGE_CHANGE_LISTENERS =
+			new ViewPager.OnPageChangeListener[0];
 	/**
 	 * The title offset
 	 */
 	private int mTitleOffset;
+	/**
+	 * The resolved theme and resource values to build the tabs with
+	 */
+	private TabStyle mStyle;
 	/**
 	 * Keeps track of the current tab open to avoid calling methods when a user clicks on an
 	 *  already open tab
 	 */
 	private int mCurrentPosition = -1;
+	/**
+	 * The position of the tab that is in the selected state, -1 if none
+	 */
+	private int mSelectedTab = -1;
 	/**
 	 * The content descriptions to use for the tabs
 	 */
 	private SparseArray<String> mContentDescriptions = new SparseArray<>();
+	/**
+	 * The icons set with {@link #setTabIcon(int, int)}, which replace the default ones
+	 */
+	private SparseIntArray mTabIconIds = new SparseIntArray();
+	/**
+	 * The badges set with {@link #setTabBadge(int, CharSequence)}
+	 */
+	private SparseArray<CharSequence> mTabBadges = new SparseArray<>();
 	/* VIEWS */
 	/**
 	 * Layout Id to use for a custom layout
@@ -97,6 +224,10 @@ public class TabLayout extends HorizontalScrollView {
 	 * ImageView Id for the eventual icon of a custom layout, null if none set
 	 */
 	private Integer mTabViewIconId = null;
+	/**
+	 * TextView Id for the eventual badge of a custom layout, null if none set
+	 */
+	private Integer mTabViewBadgeId = null;
 	/**
 	 * True if the custom tab should use the default selector, false otherwise
 	 */
@@ -117,19 +248,318 @@ public class TabLayout extends HorizontalScrollView {
 	 * True if the tabs should be distributed evenly, false otherwise
 	 */
 	private boolean mDistributeEvenly;
+	/**
+	 * True if the default tabs should be drawn by the tab strip instead of being views, false
+	 *  otherwise
+	 */
+	private boolean mDrawOnly;
+	/**
+	 * True if the tab view configuration has changed since the current tabs were built, in which
+	 *  case the existing tab views cannot be recycled
+	 */
+	private boolean mTabConfigChanged;
+	/**
+	 * The {@link TitleProvider} of the current tabs
+	 */
+	private TitleProvider mTitleProvider;
+	/**
+	 * The titles of the current tabs that have been requested from the {@link TitleProvider},
+	 *  null for the ones that have not been requested yet
+	 */
+	private List<CharSequence> mTitles = new ArrayList<>();
+	/**
+	 * The {@link TabClickListener} used by the current tabs
+	 */
+	private TabClickListener mTabClickListener;
+	/**
+	 * Incremented every time the tabs are replaced or changed, so that a {@link TabTransaction}
+	 *  can tell if the tabs changed since it began
+	 */
+	private int mTabsVersion;
+	/**
+	 * The {@link Callback} set with {@link #setCallback(Callback)}, used by the tabs restored
+	 *  from the saved state
+	 */
+	private Callback mCallback;
+	/**
+	 * The widths the tabs had when their state was saved, used while the tabs are restored.
+	 *  Null if the tabs are not being restored.
+	 */
+	private int[] mRestoredWidths;
+	/**
+	 * The scroll position to restore on the next layout, -1 if none
+	 */
+	private int mRestoredScrollX = -1;
+	/* ASYNC INFLATION */
+	/**
+	 * True if the custom tab views should be inflated in the background, false otherwise
+	 */
+	private boolean mAsyncInflation;
+	/**
+	 * The {@link OnTabsInflatedListener}, null if none
+	 */
+	private OnTabsInflatedListener mOnTabsInflatedListener;
+	/**
+	 * The {@link AsyncTabInflater} used to inflate the tab views in the background, null if none
+	 */
+	private AsyncTabInflater mAsyncTabInflater;
+	/**
+	 * The number of tab views that are being inflated in the background
+	 */
+	private int mPendingInflations;
+	/* VIRTUALIZATION */
+	/**
+	 * True if only the tabs that are on screen should have a tab view, false otherwise
+	 */
+	private boolean mVirtualized;
+	/**
+	 * The tab views that have been scrolled off screen, to reuse when other tabs are scrolled on
+	 */
+	private final List<View> mScrapTabViews = new ArrayList<>();
+	/**
+	 * The placeholders that are not in use
+	 */
+	private final List<TabPlaceholder> mScrapPlaceholders = new ArrayList<>();
+	/**
+	 * True if the tab views were released to the {@link TabViewPool} when this was detached from
+	 *  the window, and need to be bound again when it is attached, false otherwise
+	 */
+	private boolean mTabViewsReleased;
+	/**
+	 * The paint used to estimate the width of the tabs that have not been measured yet
+	 */
+	private Paint mTabWidthPaint;
+	/**
+	 * True if the virtual tabs are scheduled to be updated, false otherwise
+	 */
+	private boolean mVirtualTabsUpdatePending;
+	/**
+	 * The range of the tabs that had a tab view after the last update of the virtual tabs (-1 if
+	 *  unknown), and the version of the tabs at that time. The next update only goes through the
+	 *  tabs entering or leaving that range, unless the tabs have changed since.
+	 */
+	private int mVirtualFirst = -1;
+	private int mVirtualLast = -1;
+	private int mVirtualTabsVersion;
+	/**
+	 * How much to scroll by once the strip is laid out again, after the tabs left of the screen
+	 *  changed width when they were swapped between a tab view and a placeholder
+	 */
+	private int mPendingScrollChange;
+	/**
+	 * Updates the virtual tabs once they have been laid out or scrolled
+	 */
+	private final Runnable mVirtualTabsUpdater = new Runnable(){
+		@Override
+		public void run(){
+			mVirtualTabsUpdatePending = false;
+			updateVirtualTabs();
+		}
+	};
+	/* METRICS */
+	/**
+	 * The {@link MetricsListener}, null if none
+	 */
+	private MetricsListener mMetricsListener;
+	/**
+	 * The time spent creating tab views during the current build, in nanoseconds
+	 */
+	private long mInflationNanos;
+	/**
+	 * The number of tab views created during the current build
+	 */
+	private int mInflatedViews;
+	/**
+	 * The number of tab views reused during the current build
+	 */
+	private int mReusedViews;
+	/**
+	 * The number of times the layout was scrolled to a tab since the last scroll frame
+	 */
+	private int mScrollToTabCalls;
+	/* SCROLLING */
+	/**
+	 * The position of the page the indicator and the scroll position should be at
+	 */
+	private int mScrollPosition;
+	/**
+	 * The offset from {@link #mScrollPosition} the indicator and the scroll position should be at
+	 */
+	private float mScrollOffset;
+	/**
+	 * True if the indicator and the scroll position are scheduled to be updated, false otherwise
+	 */
+	private boolean mScrollUpdatePending;
+	/**
+	 * Updates the indicator and the scroll position on the next frame
+	 */
+	private final Runnable mScrollUpdater = new Runnable(){
+		@Override
+		public void run(){
+			mScrollUpdatePending = false;
+			updatePageScroll();
+
+			if(mMetricsListener != null){
+				mMetricsListener.onScrollFrame(mScrollToTabCalls);
+				mScrollToTabCalls = 0;
+			}
+		}
+	};
+	/* TAB UPDATES */
+	/**
+	 * Update types of a tab, used as flags
+	 */
+	private static final int UPDATE_TITLE = 1;
+	private static final int UPDATE_ICON = 2;
+	private static final int UPDATE_BADGE = 4;
+	/**
+	 * Guards the pending tab updates, which can be posted from any thread
+	 */
+	private final Object mTabUpdateLock = new Object();
+	/**
+	 * The latest titles, icons, and badges posted for each tab that have not been applied yet
+	 */
+	private final SparseArray<CharSequence> mPendingTitles = new SparseArray<>();
+	private final SparseIntArray mPendingIconIds = new SparseIntArray();
+	private final SparseArray<CharSequence> mPendingBadges = new SparseArray<>();
+	/**
+	 * True if the pending tab updates are scheduled to be applied, false otherwise
+	 */
+	private boolean mTabUpdatePending;
+	/**
+	 * The updates being applied, by tab position
+	 */
+	private final SparseIntArray mTabUpdates = new SparseIntArray();
+	/**
+	 * Handler on the main thread, which the tab updates go through
+	 */
+	private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+	/**
+	 * Schedules the pending tab updates for the next frame, from the main thread
+	 */
+	private final Runnable mTabUpdateScheduler = new Runnable(){
+		@Override
+		public void run(){
+			ViewCompat.postOnAnimation(TabLayout.this, mTabUpdater);
+		}
+	};
+	/**
+	 * Applies the pending tab updates
+	 */
+	private final Runnable mTabUpdater = new Runnable(){
+		@Override
+		public void run(){
+			applyTabUpdates();
+		}
+	};
+	/* PREFETCH */
+	/**
+	 * The {@link OnPrefetchListener}, null if none
+	 */
+	private OnPrefetchListener mOnPrefetchListener;
+	/**
+	 * How far the user needs to drag toward a page for it to be prefetched, between 0 and 1
+	 */
+	private float mPrefetchThreshold;
+	/**
+	 * The position of the page that was last prefetched, -1 if none. Reset when the pages
+	 *  settle or a new one is selected.
+	 */
+	private int mPrefetchedPosition = -1;
+	/* TAB ANIMATION */
+	/**
+	 * The duration of the animation to a newly selected tab when there is no ViewPager, in
+	 *  milliseconds. 0 if there is no animation.
+	 */
+	private int mTabAnimationDuration = DEFAULT_TAB_ANIMATION_DURATION;
+	/**
+	 * The {@link Interpolator} of the tab animation
+	 */
+	private Interpolator mTabAnimationInterpolator = new DecelerateInterpolator();
+	/**
+	 * True if the tab animation is running, false otherwise
+	 */
+	private boolean mTabAnimating;
+	/**
+	 * True if the tab animation also scrolls the layout, false if the user has taken over
+	 *  the scrolling
+	 */
+	private boolean mTabAnimationScrolls;
+	/**
+	 * The time the tab animation started at, in the animation time base
+	 */
+	private long mTabAnimationStartTime;
+	/**
+	 * The scroll position the tab animation started from and the one it ends at
+	 */
+	private int mTabAnimationStartScrollX;
+	private int mTabAnimationEndScrollX;
+	/**
+	 * Runs the frames of the tab animation
+	 */
+	private final Runnable mTabAnimator = new Runnable(){
+		@Override
+		public void run(){
+			onTabAnimationFrame();
+		}
+	};
 	/* VIEWPAGER STUFF */
 	/**
 	 * The {@link ViewPager} instance if the tabs are associated to a ViewPager
 	 */
 	private ViewPager mViewPager;
 	/**
-	 * The {@link ViewPager.OnPageChangeListener} to update the selector view
+	 * The {@link ViewPager.OnPageChangeListener} set with
+	 *  {@link #setOnPageChangeListener(ViewPager.OnPageChangeListener)}, null if none
 	 */
 	private ViewPager.OnPageChangeListener mViewPagerPageChangeListener;
+	/**
+	 * The {@link ViewPager.OnPageChangeListener}s to call on page changes. The array is replaced
+	 *  instead of modified, so listeners can be added or removed while it is being dispatched to.
+	 */
+	private ViewPager.OnPageChangeListener[] mPageChangeListeners = NO_PAGE_CHANGE_LISTENERS;
+	/**
+	 * The {@link PagerAdapter} the tabs are kept in sync with, null if none
+	 */
+	private PagerAdapter mPagerAdapter;
+	/**
+	 * The {@link DataSetObserver} used to keep the tabs in sync with the {@link PagerAdapter}
+	 */
+	private final DataSetObserver mPagerAdapterObserver = new PagerAdapterObserver();
+	/**
+	 * True if {@link #mPagerAdapterObserver} is registered with the {@link PagerAdapter}, which
+	 *  is only the case while this is attached to the window so that the adapter does not keep
+	 *  this in memory
+	 */
+	private boolean mPagerAdapterObserved;
+	/**
+	 * Selects the tab of the current page once the {@link ViewPager} has processed a change of
+	 *  its adapter: the observers are notified in reverse order of registration, so the tabs are
+	 *  synced before the {@link ViewPager} has updated its current item
+	 */
+	private final Runnable mPagerSelectionUpdater = new Runnable(){
+		@Override
+		public void run(){
+			if(mViewPager == null){
+				return;
+			}
+
+			int position = mViewPager.getCurrentItem();
+			if(position != mSelectedTab && position < mTitles.size()){
+				mCurrentPosition = position;
+				setSelectedTab(position);
+				setPageScroll(position, 0f, true);
+			}
+		}
+	};
 	/**
 	 * The tab strip containing the list of tabs
 	 */
 	private final TabStrip mTabStrip;
+	/**
+	 * The view the selection indicator is rendered with, null if it is drawn by the tab strip
+	 */
+	private View mIndicatorView;
 
 	/**
 	 * Default Constructor
@@ -165,9 +595,10 @@ public class TabLayout extends HorizontalScrollView {
 		// Make sure that the Tab Strips fills this View
 		setFillViewport(true);
 
-		mTitleOffset = (int) (TITLE_OFFSET_DIPS * getResources().getDisplayMetrics().density);
+		mStyle = TabStyle.get(context);
+		mTitleOffset = (int) (TITLE_OFFSET_DIPS * mStyle.getDensity());
 
-		mTabStrip = new TabStrip(context);
+		mTabStrip = new TabStrip(context, mStyle);
 		addView(mTabStrip, LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
 	}
 
@@ -175,47 +606,239 @@ public class TabLayout extends HorizontalScrollView {
 	protected void onAttachedToWindow() {
 		super.onAttachedToWindow();
 
+		//Bind the tab views again if they were released to the pool
+		if(mTabViewsReleased){
+			mTabViewsReleased = false;
+			if(mVirtualized){
+				scheduleVirtualTabsUpdate();
+			}
+			else{
+				for(int i = 0; i < mTabStrip.getChildCount(); i ++){
+					if(mTabStrip.getChildAt(i) instanceof TabPlaceholder){
+						materializeTab(i);
+					}
+				}
+			}
+		}
+
 		//Scroll to the current ViewPager position if there is one
 		if (mViewPager != null) {
+			if(mViewPager.getAdapter() != null && mViewPager.getAdapter() != mPagerAdapter){
+				//The adapter was replaced while this was detached
+				setViewPager(mViewPager);
+			}
+			else if(mViewPager.getAdapter() != null){
+				//Catch up with the changes made to the adapter while it was not observed
+				startObservingPagerAdapter();
+				syncTabs(mViewPager.getCurrentItem());
+			}
 			scrollToTab(mViewPager.getCurrentItem(), 0);
 		}
 	}
 
+	@Override
+	protected void onDetachedFromWindow(){
+		super.onDetachedFromWindow();
+
+		//Don't let the adapter keep this in memory
+		stopObservingPagerAdapter();
+		removeCallbacks(mPagerSelectionUpdater);
+
+		//If the tab views are pooled, release them so that other screens can use them while this
+		//  is detached. They are replaced with placeholders of the same width until then.
+		if(TabViewPool.isPooled(mTabViewLayoutId)){
+			for(int i = 0; i < mTabStrip.getChildCount(); i ++){
+				if(!(mTabStrip.getChildAt(i) instanceof TabPlaceholder)){
+					recycleTab(i);
+				}
+			}
+			releaseScrapTabViews();
+			mTabViewsReleased = true;
+			mVirtualFirst = -1;
+		}
+	}
+
+	@Override
+	protected void onConfigurationChanged(Configuration newConfig){
+		super.onConfigurationChanged(newConfig);
+
+		//The resolved values might have changed
+		mStyle = TabStyle.get(getContext());
+		mTitleOffset = (int) (TITLE_OFFSET_DIPS * mStyle.getDensity());
+
+		//The drawn titles might need a new size or color
+		if(isDrawOnly() && !mTabConfigChanged){
+			setUpDrawnTabs();
+		}
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b){
+		super.onLayout(changed, l, t, r, b);
+		mPendingScrollChange += mTabStrip.consumeDrawnScrollChange();
+
+		//The scroll position can only be restored once the tabs have been laid out
+		if(mRestoredScrollX != -1){
+			scrollTo(mRestoredScrollX, 0);
+			mRestoredScrollX = -1;
+			mPendingScrollChange = 0;
+		}
+		else if(mPendingScrollChange != 0){
+			//Keep the tabs on screen where they were
+			scrollBy(mPendingScrollChange, 0);
+			mPendingScrollChange = 0;
+		}
+		scheduleVirtualTabsUpdate();
+	}
+
+	@Override
+	protected Parcelable onSaveInstanceState(){
+		SavedState state = new SavedState(super.onSaveInstanceState());
+		state.mCurrentPosition = mCurrentPosition;
+		state.mScrollX = getScrollX();
+
+		//The tabs of a ViewPager are restored from its adapter
+		if(mViewPager == null && mTabClickListener != null){
+			//The titles of a list are all saved, but a TitleProvider might be expensive, so only
+			//  the titles that it already provided are saved
+			TitleProvider provider = mTitleProvider instanceof MovedTitleProvider ?
+					((MovedTitleProvider) mTitleProvider).mProvider : mTitleProvider;
+			boolean listTitles = provider instanceof ListTitleProvider;
+
+			int count = mTitles.size();
+			state.mTitles = new CharSequence[count];
+			state.mWidths = new int[count];
+			for(int i = 0; i < count; i ++){
+				state.mTitles[i] = listTitles ? getTitle(i) : mTitles.get(i);
+				int left = mTabStrip.getTabLeft(i);
+				state.mWidths[i] = left == -1 ? -1 : mTabStrip.getTabRight(i) - left;
+			}
+		}
+		return state;
+	}
+
+	@Override
+	protected void onRestoreInstanceState(Parcelable state){
+		if(!(state instanceof SavedState)){
+			super.onRestoreInstanceState(state);
+			return;
+		}
+
+		SavedState savedState = (SavedState) state;
+		super.onRestoreInstanceState(savedState.getSuperState());
+
+		if(mViewPager == null){
+			//Rebuild the tabs if they have not been added again, and if all of their titles were
+			//  saved
+			boolean rebuilt = false;
+			if(mTitles.isEmpty() && savedState.mTitles != null &&
+					!Arrays.asList(savedState.mTitles).contains(null)){
+				mRestoredWidths = savedState.mWidths;
+				addTabs(new TabClickListener(mCallback), -1,
+						new ListTitleProvider(Arrays.asList(savedState.mTitles)));
+				mRestoredWidths = null;
+				rebuilt = true;
+			}
+
+			//Select the saved tab. The app is only told about it if it added the tabs again
+			//  with another tab selected (the first one if it did not select any).
+			int position = savedState.mCurrentPosition;
+			if(position >= 0 && position < mTitles.size()){
+				boolean selectionChanged = !rebuilt && position != Math.max(mCurrentPosition, 0);
+				mCurrentPosition = position;
+				setSelectedTab(position);
+				mScrollPosition = position;
+				mScrollOffset = 0f;
+				mTabStrip.onViewPagerPageChanged(position, 0f);
+
+				if(selectionChanged && mTabClickListener != null &&
+						mTabClickListener.mCallback != null){
+					mTabClickListener.mCallback.onTabSelected(position);
+				}
+			}
+		}
+
+		mRestoredScrollX = savedState.mScrollX;
+		requestLayout();
+	}
+
+	@Override
+	protected void onScrollChanged(int l, int t, int oldl, int oldt){
+		super.onScrollChanged(l, t, oldl, oldt);
+		scheduleVirtualTabsUpdate();
+		//The drawn tabs request their titles once they are visible
+		mTabStrip.onDrawnTabsScrolled(l, getWidth());
+	}
+
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent ev){
+		//Leave the scrolling to the user as soon as they touch the tabs
+		if(ev.getAction() == MotionEvent.ACTION_DOWN){
+			mTabAnimationScrolls = false;
+		}
+		return super.dispatchTouchEvent(ev);
+	}
+
 	/* GETTERS */
 
 	/**
 	 * @return The default background to use
 	 */
 	private int getTabBackground(){
-		TypedValue outValue = new TypedValue();
-
 		if(mDefaultSelectorId == null){
 			//If we are in API 10 and a selector has not been set, throw an exception
 			if(Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB){
 				throw new IllegalStateException("API 10 must have the default selector set");
 			}
 			else{
-				getContext().getTheme().resolveAttribute(android.R.attr.selectableItemBackground,
-						outValue, true);
+				return mStyle.getResourceId(getContext(),
+						android.R.attr.selectableItemBackground);
 			}
 		}
 		else{
 			//Use the set selector Id
-			getContext().getTheme().resolveAttribute(mDefaultSelectorId, outValue, true);
+			return mStyle.getResourceId(getContext(), mDefaultSelectorId);
 		}
-		return outValue.resourceId;
 	}
 
 	/**
 	 * @param position The position of the desired tab
-	 * @return The tab view
+	 * @return The tab view. When the tabs are virtualized, this creates the tab view if it is not
+	 *  on screen, and the view can be recycled once it is scrolled off screen. Null if there is
+	 *  no such tab, or if the tabs are drawn by the tab strip.
 	 */
 	public View getTabView(int position){
 		if(position < 0 || position >= mTabStrip.getChildCount()){
 			return null;
 		}
 
-		return mTabStrip.getChildAt(position);
+		View tabView = mTabStrip.getChildAt(position);
+		if(tabView instanceof TabPlaceholder){
+			tabView = materializeTab(position);
+			//Recycle it with the next update if it is off screen
+			if(position < mVirtualFirst || position > mVirtualLast){
+				mVirtualFirst = -1;
+			}
+		}
+		return tabView;
+	}
+
+	/**
+	 * @param position The position of the desired tab
+	 * @return The left edge of the tab within the scrolling content as of the last layout,
+	 *  -1 if the tab has not been laid out
+	 */
+	public int getTabLeft(int position){
+		return mTabStrip.getTabLeft(position);
+	}
+
+	/**
+	 * @param position The position of the desired tab
+	 * @return The right edge of the tab within the scrolling content as of the last layout,
+	 *  -1 if the tab has not been laid out
+	 */
+	public int getTabRight(int position){
+		return mTabStrip.getTabRight(position);
 	}
 
 	/**
@@ -234,6 +857,32 @@ public class TabLayout extends HorizontalScrollView {
 
 	/* SETTERS */
 
+	/**
+	 * Sets the {@link OnPrefetchListener} to call when a page is likely to be selected next:
+	 *  when the user drags the ViewPager toward it past the given threshold, or presses its tab.
+	 *  It is only called once per page until the pages settle or a page is selected.
+	 *
+	 * @param listener  The {@link OnPrefetchListener}, null if none
+	 * @param threshold The fraction of a page the user needs to drag for the next page to be
+	 *                  prefetched, between 0 and 1
+	 */
+	public void setOnPrefetchListener(OnPrefetchListener listener, float threshold){
+		mOnPrefetchListener = listener;
+		mPrefetchThreshold = Math.max(0f, Math.min(1f, threshold));
+		mPrefetchedPosition = -1;
+	}
+
+	/**
+	 * Sets the {@link MetricsListener} to receive performance metrics about the tabs
+	 *
+	 * @param listener The {@link MetricsListener}, null to stop collecting the metrics
+	 */
+	public void setMetricsListener(MetricsListener listener){
+		mMetricsListener = listener;
+		mTabStrip.setMetricsListener(listener);
+		mScrollToTabCalls = 0;
+	}
+
 	/**
 	 * Set the custom {@link TabColorizer} to be used.
 	 *
@@ -252,15 +901,30 @@ public class TabLayout extends HorizontalScrollView {
 	 */
 	public void setDistributeEvenly(boolean distributeEvenly) {
 		mDistributeEvenly = distributeEvenly;
+		mTabConfigChanged = true;
 	}
 
 	/**
-	 * Sets the default tab text color
+	 * Draws the default tabs directly on the tab strip instead of creating a view per tab, which
+	 *  saves the memory and the layout time of the tab views. The titles are drawn as plain
+	 *  text, there is no pressed state, and the tabs are exposed to accessibility services as
+	 *  virtual views. Does not apply to custom tab views. Must be called before adding the tabs.
 	 *
-	 * @param textColorId The Id of the text color to use
+	 * @param drawOnly True if the tabs should be drawn by the tab strip, false otherwise
 	 */
-	public void setDefaultTextColor(int textColorId){
+	public void setDrawOnly(boolean drawOnly){
+		mDrawOnly = drawOnly;
+		mTabConfigChanged = true;
+	}
+
+	/**
+	 * Sets the default tab text color
+	 *
+	 * @param textColorId The Id of the text color to use
+	 */
+	public void setDefaultTextColor(int textColorId){
 		this.mDefaultTextColorId = textColorId;
+		mTabConfigChanged = true;
 	}
 
 	/**
@@ -271,6 +935,7 @@ public class TabLayout extends HorizontalScrollView {
 	 */
 	public void setDefaultSelector(int selectorId){
 		this.mDefaultSelectorId = selectorId;
+		mTabConfigChanged = true;
 	}
 
 	/**
@@ -292,6 +957,17 @@ public class TabLayout extends HorizontalScrollView {
 		mTabStrip.setSelectedIndicatorColors(colors);
 	}
 
+	/**
+	 * Sets how the indicator colors are blended while the indicator moves between tabs with
+	 *  different colors. The default is to blend them in sRGB.
+	 *
+	 * @param linear True to blend the colors in linear light, which keeps the blends between
+	 *               saturated colors from going darker, false to blend them in sRGB
+	 */
+	public void setLinearIndicatorBlending(boolean linear){
+		mTabStrip.setLinearColorBlending(linear);
+	}
+
 	/**
 	 * Sets all of the needed colors
 	 *
@@ -305,20 +981,175 @@ public class TabLayout extends HorizontalScrollView {
 
 		//Change the indicator color Ids to actual colors
 		for(int i = 0; i < indicatorColorIds.length; i++){
-			indicatorColorIds[i] = getResources().getColor(indicatorColorIds[i]);
+			indicatorColorIds[i] = mStyle.getColor(getContext(), indicatorColorIds[i]);
 		}
 		setSelectedIndicatorColors(indicatorColorIds);
 	}
 
+	/**
+	 * Sets the animation that moves the indicator and the scroll position to a newly selected
+	 *  tab when the tabs are not used with a ViewPager (with a ViewPager, they follow the page
+	 *  scrolls). The default is a {@link DecelerateInterpolator} over 250 milliseconds.
+	 *
+	 * @param durationMillis The duration of the animation in milliseconds, 0 to move to the
+	 *                       selected tab right away
+	 * @param interpolator   The {@link Interpolator} to use, null for a linear animation
+	 */
+	public void setTabAnimation(int durationMillis, Interpolator interpolator){
+		mTabAnimationDuration = durationMillis;
+		mTabAnimationInterpolator = interpolator;
+	}
+
+	/**
+	 * Sets the {@link Callback} to call when a tab is clicked for the tabs that are restored
+	 *  from the saved state. When the tabs were added with a {@link Callback}, their titles, the
+	 *  selected tab, and the scroll position are saved with the instance state. If the tabs are
+	 *  not added again before the state is restored, they are rebuilt from the saved titles.
+	 *  The titles of a {@link TitleProvider} are not requested to be saved, so tabs added with
+	 *  one are only rebuilt if it had already provided all of the titles. The rebuilt tabs
+	 *  select the saved tab without calling the {@link Callback}. If the tabs were added again,
+	 *  the {@link Callback} is called when the saved tab is not the one selected when adding
+	 *  them.
+	 *
+	 * @param callback The {@link Callback}
+	 */
+	public void setCallback(Callback callback){
+		mCallback = callback;
+		//Update the current tabs if they were added with a callback
+		if(mTabClickListener != null && mTabClickListener.mListener != null){
+			mTabClickListener.mCallback = callback;
+		}
+	}
+
+	/**
+	 * Virtualizes the tabs: only the tabs that are on screen (with a margin) have a tab view, the
+	 *  other ones are replaced by empty placeholders of the same (or of an estimated) width.
+	 *  This is useful for a large number of tabs. Must be called before adding the tabs.
+	 *
+	 * @param virtualized True if the tabs should be virtualized, false otherwise
+	 */
+	public void setVirtualized(boolean virtualized){
+		mVirtualized = virtualized;
+		mTabConfigChanged = true;
+	}
+
+	/**
+	 * Renders the selection indicator with its own view, which is moved, sized, and colored
+	 *  through its render properties. Scrolling the pages then no longer redraws the tab strip.
+	 *  Only available on API 11+, ignored otherwise.
+	 *
+	 * @param enabled True if the indicator should have its own view, false if it should be
+	 *                drawn by the tab strip
+	 */
+	public void setIndicatorLayerEnabled(boolean enabled){
+		if(Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB ||
+				enabled == (mIndicatorView != null)){
+			return;
+		}
+
+		if(enabled){
+			//The strip and the indicator view share a container, since this can only have 1 child
+			removeView(mTabStrip);
+			FrameLayout container = new FrameLayout(getContext());
+			container.addView(mTabStrip, LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+
+			mIndicatorView = new View(getContext());
+			container.addView(mIndicatorView, new FrameLayout.LayoutParams(1,
+					mTabStrip.getIndicatorThickness(), Gravity.BOTTOM));
+
+			addView(container, LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+			mTabStrip.setIndicatorView(mIndicatorView);
+		}
+		else{
+			ViewGroup container = (ViewGroup) mTabStrip.getParent();
+			container.removeView(mTabStrip);
+			removeView(container);
+			addView(mTabStrip, LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+
+			mIndicatorView = null;
+			mTabStrip.setIndicatorView(null);
+		}
+	}
+
+	/**
+	 * Inflates the custom tab views in the background. The tabs are shown as empty placeholders
+	 *  until their view has been inflated, and the views are added in order. The initial tab view
+	 *  is still inflated right away so that it can be selected. Only applies to custom tab views
+	 *  (which must be safe to inflate off of the main thread) when the tabs are not virtualized.
+	 *  Must be called before adding the tabs.
+	 *
+	 * @param asyncInflation True if the tab views should be inflated in the background,
+	 *                       false otherwise
+	 * @param listener       The {@link OnTabsInflatedListener} to call when all of the tab views
+	 *                       have been added, null if none
+	 */
+	public void setAsyncInflation(boolean asyncInflation, OnTabsInflatedListener listener){
+		mAsyncInflation = asyncInflation;
+		mOnTabsInflatedListener = listener;
+		mTabConfigChanged = true;
+	}
+
 	/**
 	 * Set the {@link ViewPager.OnPageChangeListener}. When using {@link TabLayout} you are
 	 * required to set any {@link ViewPager.OnPageChangeListener} through this method. This is so
 	 * that the layout can update it's scroll position correctly.
 	 *
 	 * @see ViewPager#setOnPageChangeListener(ViewPager.OnPageChangeListener)
+	 * @deprecated Use {@link #addOnPageChangeListener(ViewPager.OnPageChangeListener)} instead
 	 */
+	@Deprecated
 	public void setOnPageChangeListener(ViewPager.OnPageChangeListener listener) {
+		if(mViewPagerPageChangeListener != null){
+			removeOnPageChangeListener(mViewPagerPageChangeListener);
+		}
 		mViewPagerPageChangeListener = listener;
+		if(listener != null){
+			addOnPageChangeListener(listener);
+		}
+	}
+
+	/**
+	 * Adds a {@link ViewPager.OnPageChangeListener}. When using {@link TabLayout} you are
+	 *  required to add any {@link ViewPager.OnPageChangeListener} through this method instead of
+	 *  directly on the ViewPager. Listeners can be added and removed from within a callback.
+	 *
+	 * @param listener The listener to add
+	 */
+	public void addOnPageChangeListener(ViewPager.OnPageChangeListener listener){
+		int count = mPageChangeListeners.length;
+		ViewPager.OnPageChangeListener[] listeners = new ViewPager.OnPageChangeListener[count + 1];
+		System.arraycopy(mPageChangeListeners, 0, listeners, 0, count);
+		listeners[count] = listener;
+		mPageChangeListeners = listeners;
+	}
+
+	/**
+	 * Removes a {@link ViewPager.OnPageChangeListener} that was added with
+	 *  {@link #addOnPageChangeListener(ViewPager.OnPageChangeListener)}
+	 *
+	 * @param listener The listener to remove
+	 */
+	public void removeOnPageChangeListener(ViewPager.OnPageChangeListener listener){
+		ViewPager.OnPageChangeListener[] oldListeners = mPageChangeListeners;
+		for(int i = 0; i < oldListeners.length; i ++){
+			if(oldListeners[i] == listener){
+				ViewPager.OnPageChangeListener[] listeners = oldListeners.length == 1 ?
+						NO_PAGE_CHANGE_LISTENERS :
+						new ViewPager.OnPageChangeListener[oldListeners.length - 1];
+				System.arraycopy(oldListeners, 0, listeners, 0, i);
+				System.arraycopy(oldListeners, i + 1, listeners, i, listeners.length - i);
+				mPageChangeListeners = listeners;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes all of the {@link ViewPager.OnPageChangeListener}s
+	 */
+	public void clearOnPageChangeListeners(){
+		mViewPagerPageChangeListener = null;
+		mPageChangeListeners = NO_PAGE_CHANGE_LISTENERS;
 	}
 
 	/**
@@ -332,6 +1163,7 @@ public class TabLayout extends HorizontalScrollView {
 		mTabViewLayoutId = layoutResId;
 		mTabViewTextViewId = textViewId;
 		mDefaultSelector = defaultSelector;
+		mTabConfigChanged = true;
 	}
 
 	/**
@@ -358,6 +1190,7 @@ public class TabLayout extends HorizontalScrollView {
 		setCustomTabView(layoutResId, textViewId, defaultSelector);
 		mTabViewIconId = imageViewId;
 		mIconIds = iconIds;
+		mTabConfigChanged = true;
 	}
 
 	/**
@@ -373,30 +1206,96 @@ public class TabLayout extends HorizontalScrollView {
 	}
 
 	/**
-	 * Sets the associated view pager. Note that the assumption here is that the pager content
-	 * (number of tabs and tab titles) does not change after this call has been made.
+	 * Sets the {@link TextView} of the custom layout that shows the badge set with
+	 *  {@link #setTabBadge(int, CharSequence)}. The badge view is hidden when there is no badge.
+	 *  Must be called after setting the custom layout.
+	 *
+	 * @param badgeViewId Id of the badge {@link TextView} in the inflated view
+	 */
+	public void setTabBadgeView(int badgeViewId){
+		mTabViewBadgeId = badgeViewId;
+		mTabConfigChanged = true;
+	}
+
+	/**
+	 * Changes the title of a tab in place. Can be called from any thread: the updates are
+	 *  applied on the next frame, and only the latest title is applied if the title is changed
+	 *  several times in between. The tab is only laid out again if the width of its title
+	 *  changes (for custom tab views, as long as the title {@link TextView} wraps its content and
+	 *  neither title is styled). With a {@link ViewPager}, the title is replaced by the one of
+	 *  the adapter the next time the adapter changes.
+	 *
+	 * @param position The tab position
+	 * @param title    The new title
+	 */
+	public void setTabTitle(int position, CharSequence title){
+		synchronized(mTabUpdateLock){
+			mPendingTitles.put(position, title == null ? "" : title);
+			scheduleTabUpdates();
+		}
+	}
+
+	/**
+	 * Changes the icon of a tab in place, instead of the one from the icons given with
+	 *  {@link #setCustomTabView(int, int, int, int...)}. Can be called from any thread, and
+	 *  is coalesced like {@link #setTabTitle(int, CharSequence)}.
+	 *
+	 * @param position The tab position
+	 * @param iconId   The Id of the icon drawable, 0 to go back to the default icon
+	 */
+	public void setTabIcon(int position, int iconId){
+		if(mTabViewIconId == null){
+			throw new IllegalStateException("The custom tab view does not have an icon");
+		}
+		synchronized(mTabUpdateLock){
+			mPendingIconIds.put(position, iconId);
+			scheduleTabUpdates();
+		}
+	}
+
+	/**
+	 * Changes the badge of a tab in place, shown in the view set with
+	 *  {@link #setTabBadgeView(int)}. Can be called from any thread, and is coalesced like
+	 *  {@link #setTabTitle(int, CharSequence)}.
+	 *
+	 * @param position The tab position
+	 * @param badge    The badge, null or empty to hide it
+	 */
+	public void setTabBadge(int position, CharSequence badge){
+		if(mTabViewBadgeId == null){
+			throw new IllegalStateException("The badge view has not been set");
+		}
+		synchronized(mTabUpdateLock){
+			mPendingBadges.put(position, badge);
+			scheduleTabUpdates();
+		}
+	}
+
+	/**
+	 * Sets the associated view pager. The tabs are kept in sync with the pager content: calling
+	 *  {@link PagerAdapter#notifyDataSetChanged()} only updates the tabs that have changed. If
+	 *  the pager's adapter is replaced, this needs to be called again (it is done automatically
+	 *  if the adapter is replaced while this is detached from the window).
 	 *
 	 * @param viewPager The {@link ViewPager}
 	 */
 	public void setViewPager(ViewPager viewPager) {
-		//Remove all existing views
-		clear();
-
 		mViewPager = viewPager;
 		if (viewPager != null) {
 			viewPager.setOnPageChangeListener(new InternalViewPagerListener());
-			//Get the tab titles
-			List<String> titles = new ArrayList<>();
 			PagerAdapter adapter = mViewPager.getAdapter();
 			if(adapter == null){
 				throw new IllegalStateException("ViewPager needs to have an adapter set up");
 			}
+			observePagerAdapter(adapter);
 
-			for(int i = 0; i < adapter.getCount(); i ++){
-				titles.add(adapter.getPageTitle(i).toString());
-			}
-
-			addTabs(new TabClickListener(), mViewPager.getCurrentItem(), titles);
+			addTabs(new TabClickListener(), mViewPager.getCurrentItem(),
+					new PagerTitleProvider(adapter));
+		}
+		else{
+			observePagerAdapter(null);
+			//Remove all existing views
+			clear();
 		}
 	}
 
@@ -406,285 +1305,1767 @@ public class TabLayout extends HorizontalScrollView {
 	 * Clears the tabs
 	 */
 	public void clear(){
+		cancelAsyncInflation();
+		//The tab views go back to the pool, if they are pooled
+		for(int i = 0; i < mTabStrip.getChildCount(); i ++){
+			View tabView = mTabStrip.getChildAt(i);
+			if(!(tabView instanceof TabPlaceholder)){
+				mScrapTabViews.add(tabView);
+			}
+		}
 		mTabStrip.removeAllViews();
+		releaseScrapTabViews();
+		mTitles.clear();
+		mTabsVersion ++;
+		if(isDrawOnly()){
+			mTabStrip.onDrawnTabsChanged();
+		}
 	}
 
 	/**
-	 * Forces the OnClick of the currently opened tab
+	 * Starts observing the given {@link PagerAdapter}, and stops observing the previous one
+	 *
+	 * @param adapter The {@link PagerAdapter} to observe, null if none
 	 */
-	public void clickCurrentTab(){
-		int currentPosition = getCurrentTab();
-		//Set this to -1 to force the click action
-		mCurrentPosition = -1;
+	private void observePagerAdapter(PagerAdapter adapter){
+		if(mPagerAdapter == adapter){
+			return;
+		}
 
-		getTabView(currentPosition).performClick();
+		stopObservingPagerAdapter();
+		mPagerAdapter = adapter;
+		//The adapter is only observed while this is attached, see onAttachedToWindow()
+		if(getWindowToken() != null){
+			startObservingPagerAdapter();
+		}
 	}
 
 	/**
-	 * Scrolls to the specified tab
-	 *
-	 * @param tabIndex       The index of the tab to scroll to
-	 * @param positionOffset The position offset
+	 * Registers the {@link DataSetObserver} with the {@link PagerAdapter}, if there is one and it
+	 *  is not registered yet
 	 */
-	private void scrollToTab(int tabIndex, int positionOffset) {
-		View selectedChild = getTabView(tabIndex);
-
-		//No need to continue if the tab doesn't exist
-		if(selectedChild != null){
-			int targetScrollX = selectedChild.getLeft() + positionOffset;
-
-			if (tabIndex > 0 || positionOffset > 0) {
-				// If we're not at the first child and are mid-scroll, make sure we obey the offset
-				targetScrollX -= mTitleOffset;
-			}
-
-			scrollTo(targetScrollX, 0);
+	private void startObservingPagerAdapter(){
+		if(!mPagerAdapterObserved && mPagerAdapter != null){
+			mPagerAdapter.registerDataSetObserver(mPagerAdapterObserver);
+			mPagerAdapterObserved = true;
 		}
 	}
 
 	/**
-	 * Sets up the title {@link TextView} as per the material guidelines
-	 *
-	 * @param textView The TextView
+	 * Unregisters the {@link DataSetObserver} from the {@link PagerAdapter}, if it is registered
 	 */
-	private void prepareTextView(TextView textView){
-		//Keep it to 1 line or the selectors won't work
-		textView.setSingleLine();
-
-		//Set the text to all caps if we are in 14+
-		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH){
-			textView.setAllCaps(true);
+	private void stopObservingPagerAdapter(){
+		if(mPagerAdapterObserved){
+			mPagerAdapter.unregisterDataSetObserver(mPagerAdapterObserver);
+			mPagerAdapterObserved = false;
 		}
-
-		//Tabs are bold
-		textView.setTypeface(Typeface.DEFAULT_BOLD);
 	}
 
 	/**
-	 * Creates a default view to be used for tabs. This is called if a custom tab view is not set
-	 * via {@link #setCustomTabView(int, int)}.
-	 *
-	 * @return The default view to use
+	 * @param position The tab position
+	 * @return The title of the tab at the given position, requested from the
+	 *  {@link TitleProvider} if it has not been requested yet
 	 */
-	protected TextView createDefaultTabView(){
-		TextView textView = new TextView(getContext());
-		prepareTextView(textView);
-		textView.setGravity(Gravity.CENTER);
-		textView.setEllipsize(TextUtils.TruncateAt.END);
-		textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, TAB_VIEW_TEXT_SIZE_SP);
-		//Set the text color if there is one
-		if(this.mDefaultTextColorId != null){
-			textView.setTextColor(getResources().getColor(mDefaultTextColorId));
+	private CharSequence getTitle(int position){
+		CharSequence title = mTitles.get(position);
+		if(title == null){
+			title = getProviderTitle(position);
+			mTitles.set(position, title);
 		}
-		textView.setLayoutParams(new LinearLayout.LayoutParams(
-				ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
-		textView.setBackgroundResource(getTabBackground());
+		return title;
+	}
 
-		//Padding
-		int padding = (int) (TAB_VIEW_PADDING_DIPS * getResources().getDisplayMetrics().density);
-		textView.setPadding(padding, padding, padding, padding);
+	/**
+	 * @param position The tab position
+	 * @return The title the {@link TitleProvider} currently has for the given position
+	 */
+	private CharSequence getProviderTitle(int position){
+		CharSequence title = mTitleProvider.getTitle(position);
+		//Treat a missing title as an empty one
+		return title == null ? "" : title;
+	}
 
-		return textView;
+	/**
+	 * @param oldPosition The position of the tab in the current tabs
+	 * @param newPosition The position of the tab in the {@link TitleProvider}
+	 * @return True if the tab title has not changed, false otherwise
+	 */
+	private boolean isSameTitle(int oldPosition, int newPosition){
+		CharSequence title = mTitles.get(oldPosition);
+		//A title that was never requested has not been shown, so it cannot be out of date
+		return title == null || TextUtils.equals(title, getProviderTitle(newPosition));
 	}
 
 	/**
-	 * Adds the tabs based on a list of Strings to use as tab titles
+	 * Updates the tabs to match the current content of the {@link TitleProvider}. Only the tabs
+	 *  that have been inserted, removed, or retitled are touched.
 	 *
-	 * @param listener   The {@link TabClickListener} to use when a tab is clicked
-	 * @param initialTab The initial tab to show
-	 * @param titles     The titles for the tabs
+	 * @param currentPosition The position of the currently selected tab
 	 */
-	private void addTabs(TabClickListener listener, int initialTab, List<String> titles){
-		//Clear any existing tabs
-		clear();
-		//Reset the current position
-		mCurrentPosition = -1;
-		View initialTabView = null;
-
-		//Go through the titles
-		for(int i = 0; i < titles.size(); i ++){
-			View tabView;
-			TextView tabTitleView = null;
+	private void syncTabs(int currentPosition){
+		int oldCount = mTitles.size();
+		int newCount = mTitleProvider.getCount();
+
+		//Find the titles that have not changed at the start
+		int start = 0;
+		while(start < oldCount && start < newCount && isSameTitle(start, start)){
+			start ++;
+		}
 
-			//If there is a custom tab view layout id set, try and inflate it
-			if(mTabViewLayoutId != 0){
-				tabView = LayoutInflater.from(getContext()).inflate(mTabViewLayoutId, mTabStrip,
-						false);
-				//Set the default selector if we should use the default selector
-				if(mDefaultSelector){
-					tabView.setBackgroundResource(getTabBackground());
-				}
+		//Find the titles that have not changed at the end
+		int end = 0;
+		while(end < oldCount - start && end < newCount - start &&
+				isSameTitle(oldCount - 1 - end, newCount - 1 - end)){
+			end ++;
+		}
 
-				tabTitleView = (TextView) tabView.findViewById(mTabViewTextViewId);
-				prepareTextView(tabTitleView);
+		int oldChanged = oldCount - start - end;
+		int newChanged = newCount - start - end;
+		int retitled = Math.min(oldChanged, newChanged);
 
-				//Set up the icon if needed
-				if(mTabViewIconId != null){
-					ImageView iconView = (ImageView)tabView.findViewById(mTabViewIconId);
-					//Wrap through the icons
-					iconView.setImageResource(mIconIds[i % mIconIds.length]);
-				}
-			}
-			else{
-				//If not, just use the default tab view
-				tabView = createDefaultTabView();
-			}
+		//Unselect the selected tab view before it moves, the new one is selected at the end
+		if(mSelectedTab >= 0 && mSelectedTab < mTabStrip.getChildCount()){
+			mTabStrip.getChildAt(mSelectedTab).setSelected(false);
+		}
 
-			//If there is no tab title and the tab view is a TextView, use that
-			if(tabTitleView == null){
-				if(!TextView.class.isInstance(tabView)){
-					//If there is no tab title, throw an exception
-					throw new IllegalStateException("Could not find the title TextView");
-				}
-				tabTitleView = (TextView) tabView;
+		//Keep the titles that have not changed, the others are requested again when needed
+		List<CharSequence> titles = new ArrayList<>(newCount);
+		titles.addAll(mTitles.subList(0, start));
+		titles.addAll(Collections.<CharSequence>nCopies(newChanged, null));
+		titles.addAll(mTitles.subList(oldCount - end, oldCount));
+		mTitles = titles;
+		mTabsVersion ++;
+
+		if(isDrawOnly()){
+			//The strip draws the tabs itself
+			mTabStrip.onDrawnTabsChanged();
+		}
+		else{
+			//Rebind the tabs that were retitled
+			for(int i = start; i < start + retitled; i ++){
+				rebindTab(i);
 			}
 
-			//Set equal weights if we are to distribute these tabs evenly
-			if(mDistributeEvenly){
-				LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams)tabView.getLayoutParams();
-				lp.width = 0;
-				lp.weight = 1;
+			if(oldChanged > newChanged){
+				//Remove the tabs that were removed
+				mTabStrip.removeViews(start + retitled, oldChanged - newChanged);
 			}
-
-			//Set the text and the listener
-			tabTitleView.setText(titles.get(i));
-			tabView.setOnClickListener(listener);
-
-			//Set the content description if there is one
-			String desc = mContentDescriptions.get(i, null);
-			if (desc != null) {
-				tabView.setContentDescription(desc);
+			else{
+				//Add the tabs that were inserted
+				for(int i = start + retitled; i < start + newChanged; i ++){
+					mTabStrip.addView(createTab(i), i);
+				}
 			}
 
-			//Add it to the strip
-			mTabStrip.addView(tabView);
-
-			//If we found the initial tab, store it
-			if(i == initialTab){
-				initialTabView = tabView;
+			//The positions and content descriptions are set by position, so update the shifted tabs
+			if(oldChanged != newChanged){
+				for(int i = start + newChanged; i < newCount; i ++){
+					View tabView = mTabStrip.getChildAt(i);
+					if(!(tabView instanceof TabPlaceholder)){
+						tabView.setTag(R.id.tab_index, i);
+						tabView.setContentDescription(mContentDescriptions.get(i, null));
+					}
+				}
 			}
 		}
 
-		//Click on the first tab if there is one. This will set the initial position
-		if(initialTabView != null){
-			initialTabView.performClick();
+		//Update the selected tab (the previously selected tab view might have moved)
+		mTabStrip.onDrawnTabSelected(mSelectedTab, currentPosition);
+		mCurrentPosition = currentPosition;
+		mSelectedTab = currentPosition;
+		if(currentPosition >= 0 && currentPosition < mTabStrip.getChildCount()){
+			mTabStrip.getChildAt(currentPosition).setSelected(true);
+		}
+		if(currentPosition >= 0 && currentPosition < newCount){
+			setPageScroll(currentPosition, 0f, true);
 		}
-	}
 
-	/**
-	 * Adds the tabs based on a list of Strings to use as tab titles
-	 *
-	 * @param callback   The {@link Callback} to call when a tab is clicked
-	 * @param initialTab The initial tab selected
-	 * @param titles     The variable list of titles
-	 */
-	public void addTabs(Callback callback, int initialTab, List<String> titles){
-		addTabs(new TabClickListener(callback), initialTab, titles);
+		startAsyncInflation();
 	}
 
 	/**
-	 * Adds the tabs based on a list of Strings to use as tab titles.
-	 *  Assumes that the first tab is the selected one but will not call the callback
-	 *
-	 * @param callback The {@link Callback} to call when a tab is clicked
-	 * @param titles   The titles for the tabs
+	 * Forces the OnClick of the currently opened tab
 	 */
-	public void addTabs(Callback callback, List<String> titles){
-		addTabs(callback, -1, titles);
+	public void clickCurrentTab(){
+		int currentPosition = getCurrentTab();
+		//Set this to -1 to force the click action
+		mCurrentPosition = -1;
+
+		clickTab(currentPosition);
 	}
 
 	/**
-	 * Adds the tabs based on the given titles
+	 * Clicks on the tab at the given position, if there is one
 	 *
-	 * @param callback   The {@link Callback} to use when a tab is selected
-	 * @param initialTab The initial tab selected
-	 * @param titles     The variable list of titles
+	 * @param position The tab position
 	 */
-	public void addTabs(Callback callback, int initialTab, String... titles){
-		List<String> tabTitles = new ArrayList<>();
-		Collections.addAll(tabTitles, titles);
+	private void clickTab(int position){
+		if(position < 0 || position >= mTitles.size()){
+			return;
+		}
 
-		addTabs(callback, initialTab, tabTitles);
+		if(isDrawOnly()){
+			//The drawn tabs do not have a view to click on
+			mTabClickListener.onTabClick(position);
+		}
+		else{
+			getTabView(position).performClick();
+		}
 	}
 
 	/**
-	 * Adds the tabs based on the given titles.
-	 *  Assumes that the first tab is the selected one but will not call the callback
-	 *
-	 * @param callback The {@link Callback} to call when a tab is clicked
-	 * @param titles   The variable list of titles
+	 * Schedules the pending tab updates to be applied on the next frame if they are not already.
+	 *  Goes through the main thread first, as views can only be posted to from there.
+	 *  Must be called with the update lock held.
 	 */
-	public void addTabs(Callback callback, String... titles){
-		addTabs(callback, -1, titles);
+	private void scheduleTabUpdates(){
+		if(!mTabUpdatePending){
+			mTabUpdatePending = true;
+			mMainHandler.post(mTabUpdateScheduler);
+		}
 	}
 
 	/**
-	 * {@link ViewPager.OnPageChangeListener} to use to update the selector
+	 * Applies the latest posted titles, icons, and badges to the tabs
 	 */
-	private class InternalViewPagerListener implements ViewPager.OnPageChangeListener {
-		/**
-		 * The current scroll state. By default idle so that the indicator is scrolled to a tab
-		 *  when not using a ViewPager.
-		 */
-		private int mScrollState = ViewPager.SCROLL_STATE_IDLE;
-
-		@Override
-		public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels){
-			mTabStrip.onViewPagerPageChanged(position, positionOffset);
-
-			View selectedTitle = getTabView(position);
-			int extraOffset = (selectedTitle != null) ?
-					(int) (positionOffset * selectedTitle.getWidth()) : 0;
-			scrollToTab(position, extraOffset);
-
-			//Call the page listener if there's an associated one
-			if(mViewPagerPageChangeListener != null){
-				mViewPagerPageChangeListener.onPageScrolled(position, positionOffset,
-						positionOffsetPixels);
+	private void applyTabUpdates(){
+		synchronized(mTabUpdateLock){
+			mTabUpdatePending = false;
+
+			for(int i = 0; i < mPendingTitles.size(); i ++){
+				int position = mPendingTitles.keyAt(i);
+				//The tabs might have changed since the title was posted
+				if(position < mTitles.size()){
+					mTitles.set(position, mPendingTitles.valueAt(i));
+					mTabUpdates.put(position, mTabUpdates.get(position) | UPDATE_TITLE);
+				}
+			}
+			for(int i = 0; i < mPendingIconIds.size(); i ++){
+				int position = mPendingIconIds.keyAt(i);
+				mTabIconIds.put(position, mPendingIconIds.valueAt(i));
+				mTabUpdates.put(position, mTabUpdates.get(position) | UPDATE_ICON);
+			}
+			for(int i = 0; i < mPendingBadges.size(); i ++){
+				int position = mPendingBadges.keyAt(i);
+				mTabBadges.put(position, mPendingBadges.valueAt(i));
+				mTabUpdates.put(position, mTabUpdates.get(position) | UPDATE_BADGE);
 			}
-		}
 
-		@Override
-		public void onPageScrollStateChanged(int state) {
-			mScrollState = state;
+			mPendingTitles.clear();
+			mPendingIconIds.clear();
+			mPendingBadges.clear();
+		}
 
-			//Call the page listener if there's an associated one
-			if(mViewPagerPageChangeListener != null){
-				mViewPagerPageChangeListener.onPageScrollStateChanged(state);
-			}
+		//The drawn tabs are all measured again
+		if(isDrawOnly() && mTabUpdates.size() > 0){
+			mTabStrip.onDrawnTabsChanged();
 		}
 
-		@Override
-		public void onPageSelected(int position) {
-			//Update the current position (only useful when using this with a ViewPager)
-			mCurrentPosition = position;
-			if(mScrollState == ViewPager.SCROLL_STATE_IDLE){
-				mTabStrip.onViewPagerPageChanged(position, 0f);
-				scrollToTab(position, 0);
+		//Only update the tab views that exist, the others pick up the changes when bound
+		for(int i = 0; i < mTabUpdates.size(); i ++){
+			int position = mTabUpdates.keyAt(i);
+			if(position >= mTabStrip.getChildCount()){
+				continue;
 			}
 
-			//Go through the children and set their selected state depending on the selected page
-			for(int i = 0; i < mTabStrip.getChildCount(); i++){
-				mTabStrip.getChildAt(i).setSelected(position == i);
+			int updates = mTabUpdates.valueAt(i);
+			View tabView = mTabStrip.getChildAt(position);
+			if(tabView instanceof TabPlaceholder){
+				if((updates & UPDATE_TITLE) != 0){
+					((TabPlaceholder) tabView).setWidth(estimateTabWidth(position),
+							mDistributeEvenly);
+				}
+				continue;
 			}
 
-			//Call the page listener if there's an associated one
-			if(mViewPagerPageChangeListener != null){
-				mViewPagerPageChangeListener.onPageSelected(position);
+			if((updates & UPDATE_TITLE) != 0){
+				bindTabTitle(tabView, getTitle(position));
+			}
+			if((updates & UPDATE_ICON) != 0){
+				bindTabIcon(tabView, position);
+			}
+			if((updates & UPDATE_BADGE) != 0){
+				bindTabBadge(tabView, position);
 			}
 		}
+		mTabUpdates.clear();
 	}
 
 	/**
-	 * {@link View.OnClickListener} used for the tabs
+	 * Calls the {@link OnPrefetchListener} for the given page if it has not been called for it
+	 *  already
+	 *
+	 * @param position The page position
 	 */
-	private class TabClickListener implements OnClickListener{
-		/**
-		 * The callback to call when a tab is selected for when using the tabs without a ViewPager
-		 */
-		private Callback mCallback = null;
-		/**
-		 * The listener to use when using the tabs without a ViewPager
+	private void prefetch(int position){
+		if(mOnPrefetchListener != null && position != mPrefetchedPosition &&
+				position != mCurrentPosition && position >= 0 && position < mTitles.size()){
+			mPrefetchedPosition = position;
+			mOnPrefetchListener.onPrefetch(position);
+		}
+	}
+
+	/**
+	 * Moves the selected state from the previously selected tab to the given one
+	 *
+	 * @param position The position of the newly selected tab
+	 */
+	private void setSelectedTab(int position){
+		if(mSelectedTab >= 0 && mSelectedTab < mTabStrip.getChildCount()){
+			mTabStrip.getChildAt(mSelectedTab).setSelected(false);
+		}
+		if(position >= 0 && position < mTabStrip.getChildCount()){
+			mTabStrip.getChildAt(position).setSelected(true);
+		}
+		mTabStrip.onDrawnTabSelected(mSelectedTab, position);
+		mSelectedTab = position;
+	}
+
+	/**
+	 * Sets the page position the indicator and the scroll position should be at
+	 *
+	 * @param position       The page position
+	 * @param positionOffset The offset from the page position
+	 * @param immediate      True if they should be updated right away, false if they should be
+	 *                       updated on the next frame (in which case multiple updates within the
+	 *                       same frame are only applied once)
+	 */
+	private void setPageScroll(int position, float positionOffset, boolean immediate){
+		cancelTabAnimation();
+		mScrollPosition = position;
+		mScrollOffset = positionOffset;
+
+		if(immediate){
+			updatePageScroll();
+		}
+		else if(!mScrollUpdatePending){
+			mScrollUpdatePending = true;
+			ViewCompat.postOnAnimation(this, mScrollUpdater);
+		}
+	}
+
+	/**
+	 * Animates the indicator and the scroll position to the given tab. A running animation is
+	 *  taken over from wherever it currently is.
+	 *
+	 * @param position The tab position
+	 */
+	private void animateToTab(int position){
+		boolean atTab = position == mScrollPosition && mScrollOffset == 0f;
+		//Move right away if there is no animation, nowhere to go, or no layout to animate to
+		if(mTabAnimationDuration <= 0 || (atTab && !mTabAnimating) ||
+				!mTabStrip.startIndicatorTransition(position)){
+			setPageScroll(position, 0f, true);
+			return;
+		}
+
+		mScrollPosition = position;
+		mScrollOffset = 0f;
+		mTabAnimationStartTime = AnimationUtils.currentAnimationTimeMillis();
+		mTabAnimationStartScrollX = getScrollX();
+		mTabAnimationEndScrollX = getTabScrollX(mTabStrip.getTabLeft(position), position, 0);
+		mTabAnimationScrolls = true;
+
+		//A running animation already has its next frame scheduled
+		if(!mTabAnimating){
+			mTabAnimating = true;
+			ViewCompat.postOnAnimation(this, mTabAnimator);
+		}
+	}
+
+	/**
+	 * Updates the indicator and the scroll position for the current frame of the tab animation
+	 */
+	private void onTabAnimationFrame(){
+		float fraction = (AnimationUtils.currentAnimationTimeMillis() - mTabAnimationStartTime) /
+				(float) mTabAnimationDuration;
+		if(fraction >= 1f){
+			if(mTabAnimationScrolls){
+				//This also stops the animation
+				setPageScroll(mScrollPosition, 0f, true);
+			}
+			else{
+				//Leave the scroll position where the user put it
+				cancelTabAnimation();
+				mTabStrip.onViewPagerPageChanged(mScrollPosition, 0f);
+			}
+			return;
+		}
+
+		if(mTabAnimationInterpolator != null){
+			fraction = mTabAnimationInterpolator.getInterpolation(fraction);
+		}
+		mTabStrip.setIndicatorTransitionFraction(fraction);
+		if(mTabAnimationScrolls){
+			scrollTo(IndicatorMath.interpolate(mTabAnimationStartScrollX, mTabAnimationEndScrollX,
+					fraction), 0);
+		}
+		ViewCompat.postOnAnimation(this, mTabAnimator);
+	}
+
+	/**
+	 * Stops the tab animation if it is running
+	 */
+	private void cancelTabAnimation(){
+		if(mTabAnimating){
+			mTabAnimating = false;
+			removeCallbacks(mTabAnimator);
+		}
+	}
+
+	/**
+	 * Updates the indicator and the scroll position together to the last set page position
+	 */
+	private void updatePageScroll(){
+		mTabStrip.onViewPagerPageChanged(mScrollPosition, mScrollOffset);
+
+		int extraOffset = mScrollPosition < mTabStrip.getTabCount() ? (int) (mScrollOffset *
+				(mTabStrip.getTabRight(mScrollPosition) - mTabStrip.getTabLeft(mScrollPosition)))
+				: 0;
+		scrollToTab(mScrollPosition, extraOffset);
+	}
+
+	/**
+	 * Scrolls to the specified tab
+	 *
+	 * @param tabIndex       The index of the tab to scroll to
+	 * @param positionOffset The position offset
+	 */
+	private void scrollToTab(int tabIndex, int positionOffset) {
+		if(mMetricsListener != null){
+			mScrollToTabCalls ++;
+		}
+
+		int tabLeft = mTabStrip.getTabLeft(tabIndex);
+
+		//No need to continue if the tab doesn't exist
+		if(tabLeft != -1){
+			int targetScrollX = getTabScrollX(tabLeft, tabIndex, positionOffset);
+
+			//No need to scroll if we are already there
+			if(targetScrollX != getScrollX()){
+				scrollTo(targetScrollX, 0);
+			}
+		}
+	}
+
+	/**
+	 * @param tabLeft        The left edge of the tab
+	 * @param tabIndex       The index of the tab
+	 * @param positionOffset The position offset
+	 * @return The scroll position that shows the given tab
+	 */
+	private int getTabScrollX(int tabLeft, int tabIndex, int positionOffset){
+		int targetScrollX = tabLeft + positionOffset;
+
+		if (tabIndex > 0 || positionOffset > 0) {
+			// If we're not at the first child and are mid-scroll, make sure we obey the offset
+			targetScrollX -= mTitleOffset;
+		}
+		return targetScrollX;
+	}
+
+	/**
+	 * @return True if the tab titles are shown in all caps (on 14+), false otherwise
+	 */
+	private static boolean isAllCaps(){
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH;
+	}
+
+	/**
+	 * Sets up the title {@link TextView} as per the material guidelines
+	 *
+	 * @param textView The TextView
+	 */
+	private void prepareTextView(TextView textView){
+		//Keep it to 1 line or the selectors won't work
+		textView.setSingleLine();
+
+		//Set the text to all caps if we are in 14+
+		if(isAllCaps()){
+			textView.setAllCaps(true);
+		}
+
+		//Tabs are bold
+		textView.setTypeface(Typeface.DEFAULT_BOLD);
+	}
+
+	/**
+	 * @return The colors of the drawn tab titles, by state: the default text color if there is
+	 *  one, the theme's primary text color otherwise
+	 */
+	private ColorStateList getTabTextColors(){
+		int colorId = mDefaultTextColorId != null ? mDefaultTextColorId :
+				mStyle.getResourceId(getContext(), android.R.attr.textColorPrimary);
+		if(colorId == 0){
+			//The theme's text color is not a resource
+			return ColorStateList.valueOf(mStyle.getForegroundColor());
+		}
+		return mStyle.getColorStateList(getContext(), colorId);
+	}
+
+	/**
+	 * Creates a default view to be used for tabs. This is called if a custom tab view is not set
+	 * via {@link #setCustomTabView(int, int)}.
+	 *
+	 * @return The default view to use
+	 */
+	protected TextView createDefaultTabView(){
+		TextView textView = new TextView(getContext());
+		prepareTextView(textView);
+		textView.setGravity(Gravity.CENTER);
+		textView.setEllipsize(TextUtils.TruncateAt.END);
+		textView.setTextSize(TypedValue.COMPLEX_UNIT_SP, TAB_VIEW_TEXT_SIZE_SP);
+		//Set the text color if there is one
+		if(this.mDefaultTextColorId != null){
+			textView.setTextColor(mStyle.getColor(getContext(), mDefaultTextColorId));
+		}
+		textView.setLayoutParams(new LinearLayout.LayoutParams(
+				ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+		textView.setBackgroundResource(getTabBackground());
+
+		//Padding
+		int padding = (int) (TAB_VIEW_PADDING_DIPS * mStyle.getDensity());
+		textView.setPadding(padding, padding, padding, padding);
+
+		return textView;
+	}
+
+	/**
+	 * Creates a new tab view, either by inflating the custom tab layout or by using the default
+	 *  tab view
+	 *
+	 * @return The new tab view, without a title
+	 */
+	private View createTabView(){
+		long start = mMetricsListener != null ? System.nanoTime() : 0;
+		View tabView;
+
+		//If there is a custom tab view layout id set, take a pooled view or inflate it
+		if(mTabViewLayoutId != 0){
+			tabView = TabViewPool.acquire(mTabViewLayoutId, getContext(),
+					mStyle.getConfiguration());
+			if(tabView != null){
+				resetPooledTabView(tabView);
+				mReusedViews ++;
+			}
+			else{
+				tabView = LayoutInflater.from(getContext()).inflate(mTabViewLayoutId, mTabStrip,
+						false);
+				onTabViewInflated(tabView);
+			}
+			prepareCustomTabView(tabView);
+		}
+		else{
+			//If not, just use the default tab view
+			tabView = createDefaultTabView();
+			prepareTabWeight(tabView);
+			mInflatedViews ++;
+		}
+
+		if(mMetricsListener != null){
+			mInflationNanos += System.nanoTime() - start;
+		}
+		return tabView;
+	}
+
+	/**
+	 * Records how a custom tab view was inflated, so that it can be released to the
+	 *  {@link TabViewPool} and reset when it is taken from it
+	 *
+	 * @param tabView The newly inflated custom tab view
+	 */
+	private void onTabViewInflated(View tabView){
+		tabView.setTag(R.id.tab_layout_id, mTabViewLayoutId);
+		if(TabViewPool.isPooled(mTabViewLayoutId)){
+			tabView.setTag(R.id.tab_inflated_state,
+					new InflatedTabState(tabView, mStyle.getConfiguration()));
+		}
+		mInflatedViews ++;
+	}
+
+	/**
+	 * Resets a custom tab view taken from the {@link TabViewPool} to how it was inflated, since
+	 *  {@link #prepareCustomTabView(View)} only changes what this is set up to change
+	 *
+	 * @param tabView The pooled tab view
+	 */
+	@SuppressWarnings("deprecation")
+	private void resetPooledTabView(View tabView){
+		InflatedTabState state = (InflatedTabState) tabView.getTag(R.id.tab_inflated_state);
+		LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) tabView.getLayoutParams();
+		lp.width = state.mWidth;
+		lp.weight = state.mWeight;
+		tabView.setBackgroundDrawable(state.mBackground);
+	}
+
+	/**
+	 * Releases a custom tab view that is no longer used to the {@link TabViewPool}. The views
+	 *  that were inflated before their layout was pooled are dropped.
+	 *
+	 * @param tabView The tab view, which must not have a parent
+	 */
+	private void releaseTabView(View tabView){
+		Object layoutId = tabView.getTag(R.id.tab_layout_id);
+		InflatedTabState state = (InflatedTabState) tabView.getTag(R.id.tab_inflated_state);
+		if(layoutId != null && state != null){
+			//The listeners would keep this, and everything it references, in the pool
+			tabView.setOnClickListener(null);
+			tabView.setOnTouchListener(null);
+			tabView.setTag(R.id.tab_index, null);
+			TabViewPool.release((Integer) layoutId, tabView, getContext(), state.mConfiguration);
+		}
+	}
+
+	/**
+	 * Sets up a newly inflated custom tab view
+	 *
+	 * @param tabView The custom tab view
+	 */
+	private void prepareCustomTabView(View tabView){
+		//Set the default selector if we should use the default selector
+		if(mDefaultSelector){
+			tabView.setBackgroundResource(getTabBackground());
+		}
+
+		prepareTextView(getTabTitleView(tabView));
+		prepareTabWeight(tabView);
+	}
+
+	/**
+	 * Sets up the layout params of a new tab view
+	 *
+	 * @param tabView The tab view
+	 */
+	private void prepareTabWeight(View tabView){
+		//Set equal weights if we are to distribute these tabs evenly
+		if(mDistributeEvenly){
+			LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams)tabView.getLayoutParams();
+			lp.width = 0;
+			lp.weight = 1;
+		}
+	}
+
+	/**
+	 * @param tabView The tab view
+	 * @return The {@link TextView} to use for the title of the given tab view
+	 */
+	private TextView getTabTitleView(View tabView){
+		TextView tabTitleView = null;
+		if(mTabViewLayoutId != 0){
+			tabTitleView = (TextView) tabView.findViewById(mTabViewTextViewId);
+		}
+
+		//If there is no tab title and the tab view is a TextView, use that
+		if(tabTitleView == null){
+			if(!TextView.class.isInstance(tabView)){
+				//If there is no tab title, throw an exception
+				throw new IllegalStateException("Could not find the title TextView");
+			}
+			tabTitleView = (TextView) tabView;
+		}
+		return tabTitleView;
+	}
+
+	/**
+	 * Binds a new or recycled tab view to the given tab. This resets all of the state that could
+	 *  have been left over from a previous binding.
+	 *
+	 * @param tabView  The tab view
+	 * @param position The tab position
+	 * @param title    The tab title
+	 * @param listener The {@link TabClickListener} to use when the tab is clicked
+	 */
+	private void bindTabView(View tabView, int position, CharSequence title,
+			TabClickListener listener){
+		//Set the icon, the badge, the text, the position, and the listener
+		bindTabIcon(tabView, position);
+		bindTabBadge(tabView, position);
+		bindTabTitle(tabView, title);
+		tabView.setTag(R.id.tab_index, position);
+		tabView.setOnClickListener(listener);
+		tabView.setOnTouchListener(listener);
+
+		//Set the content description (this clears any one left over on a recycled view)
+		tabView.setContentDescription(mContentDescriptions.get(position, null));
+
+		//The selected state is set when the tab gets selected
+		tabView.setSelected(false);
+	}
+
+	/**
+	 * Sets the icon of a tab view if it has one
+	 *
+	 * @param tabView  The tab view
+	 * @param position The tab position
+	 */
+	private void bindTabIcon(View tabView, int position){
+		if(mTabViewLayoutId == 0 || mTabViewIconId == null){
+			return;
+		}
+
+		//Use the icon set for this tab, or wrap through the icons
+		int iconId = mTabIconIds.get(position, 0);
+		if(iconId == 0 && mIconIds != null && mIconIds.length > 0){
+			iconId = mIconIds[position % mIconIds.length];
+		}
+
+		//The icons are shared through the icon cache
+		ImageView iconView = (ImageView)tabView.findViewById(mTabViewIconId);
+		iconView.setImageDrawable(iconId == 0 ? null : IconCache.getDrawable(getContext(), iconId));
+	}
+
+	/**
+	 * Sets the badge of a tab view if it has one
+	 *
+	 * @param tabView  The tab view
+	 * @param position The tab position
+	 */
+	private void bindTabBadge(View tabView, int position){
+		if(mTabViewLayoutId == 0 || mTabViewBadgeId == null){
+			return;
+		}
+
+		TextView badgeView = (TextView)tabView.findViewById(mTabViewBadgeId);
+		CharSequence badge = mTabBadges.get(position);
+		badgeView.setText(badge);
+		int visibility = TextUtils.isEmpty(badge) ? View.GONE : View.VISIBLE;
+		//Changing the visibility lays the tab out again, so only do it when needed
+		if(badgeView.getVisibility() != visibility){
+			badgeView.setVisibility(visibility);
+		}
+	}
+
+	/**
+	 * Sets the title of a tab view
+	 *
+	 * @param tabView The tab view
+	 * @param title   The tab title
+	 */
+	private void bindTabTitle(View tabView, CharSequence title){
+		TextView tabTitleView = getTabTitleView(tabView);
+
+		//The width of the default tabs is known ahead of time from the cached title width, unless
+		//  the cache cannot describe the tab, in which case the tab needs to measure its title.
+		//  Having a fixed width also means that the text can change without laying the tab out
+		//  again.
+		if(mTabViewLayoutId == 0 && !mDistributeEvenly){
+			int width = ViewGroup.LayoutParams.WRAP_CONTENT;
+			if(hasCachedTitleWidth(tabView, tabTitleView, title)){
+				//The compound paddings include the compound drawables and their padding
+				width = TitleWidthCache.getWidth(tabTitleView.getPaint(), title.toString(),
+						isAllCaps()) + tabTitleView.getCompoundPaddingLeft() +
+						tabTitleView.getCompoundPaddingRight();
+			}
+			ViewGroup.LayoutParams lp = tabView.getLayoutParams();
+			if(lp.width != width){
+				lp.width = width;
+				tabView.setLayoutParams(lp);
+			}
+		}
+		else{
+			//A TextView that wraps its content lays itself out again whenever its text changes.
+			//  When the cached title widths describe the title, its width is set to the width of
+			//  the new title instead, so that it is only laid out again if that width changes.
+			int width = getTitleViewWidth(tabTitleView, title);
+			ViewGroup.LayoutParams lp = tabTitleView.getLayoutParams();
+			boolean pinned = tabTitleView.getTag(R.id.tab_title_pinned) != null;
+			if(lp != null && lp.width != width &&
+					(pinned || width != ViewGroup.LayoutParams.WRAP_CONTENT)){
+				lp.width = width;
+				tabTitleView.setLayoutParams(lp);
+			}
+			tabTitleView.setTag(R.id.tab_title_pinned,
+					width != ViewGroup.LayoutParams.WRAP_CONTENT ? Boolean.TRUE : null);
+		}
+
+		tabTitleView.setText(title);
+	}
+
+	/**
+	 * @param tabView      The default tab view
+	 * @param tabTitleView Its title {@link TextView}
+	 * @param title        The tab title
+	 * @return True if the width of the tab is its cached title width plus its compound paddings,
+	 *  false if the tab is not only its title, if the title is styled, or if the caps
+	 *  transformation was changed (for example by a subclass in {@link #createDefaultTabView()})
+	 */
+	private static boolean hasCachedTitleWidth(View tabView, TextView tabTitleView,
+			CharSequence title){
+		return tabView == tabTitleView && !(title instanceof Spanned) &&
+				(!isAllCaps() || tabTitleView.getTransformationMethod() != null);
+	}
+
+	/**
+	 * @param tabTitleView The laid out {@link TextView} of a custom tab title
+	 * @param title        The new title
+	 * @return The width of the new title if the title view wraps its content (or was set to the
+	 *  width of its text) and its current width is the cached width of its current title,
+	 *  {@link ViewGroup.LayoutParams#WRAP_CONTENT} otherwise or if either title is styled
+	 */
+	private int getTitleViewWidth(TextView tabTitleView, CharSequence title){
+		ViewGroup.LayoutParams lp = tabTitleView.getLayoutParams();
+		CharSequence oldTitle = tabTitleView.getText();
+		if(lp == null || (lp.width != ViewGroup.LayoutParams.WRAP_CONTENT &&
+				tabTitleView.getTag(R.id.tab_title_pinned) == null) ||
+				tabTitleView.getWidth() == 0 || title instanceof Spanned ||
+				oldTitle instanceof Spanned){
+			return ViewGroup.LayoutParams.WRAP_CONTENT;
+		}
+
+		//The title needs to have been measured as the cache measures it, and not constrained
+		TextPaint paint = tabTitleView.getPaint();
+		int padding = tabTitleView.getCompoundPaddingLeft() +
+				tabTitleView.getCompoundPaddingRight();
+		if(tabTitleView.getWidth() !=
+				TitleWidthCache.getWidth(paint, oldTitle.toString(), isAllCaps()) + padding){
+			return ViewGroup.LayoutParams.WRAP_CONTENT;
+		}
+		return TitleWidthCache.getWidth(paint, title.toString(), isAllCaps()) + padding;
+	}
+
+	/**
+	 * Adds the tabs based on a {@link TitleProvider}. The existing tab views are recycled when
+	 *  possible, and new tab views are only created for the tabs that could not reuse an
+	 *  existing one.
+	 *
+	 * @param listener   The {@link TabClickListener} to use when a tab is clicked
+	 * @param initialTab The initial tab to show
+	 * @param provider   The {@link TitleProvider} for the tab titles
+	 */
+	private void addTabs(TabClickListener listener, int initialTab, TitleProvider provider){
+		long start = mMetricsListener != null ? System.nanoTime() : 0;
+		mInflationNanos = 0;
+		mInflatedViews = 0;
+		mReusedViews = 0;
+
+		//The tab views being inflated will be requested again if they are still needed
+		cancelAsyncInflation();
+
+		//If the tab views were built with a different configuration, they cannot be recycled
+		if(mTabConfigChanged){
+			clear();
+			mTabConfigChanged = false;
+			setUpDrawnTabs();
+		}
+
+		//Remove the tab views that will not be recycled
+		int count = provider.getCount();
+		int recycledCount = Math.min(mTabStrip.getChildCount(), count);
+		if(mTabStrip.getChildCount() > recycledCount){
+			mTabStrip.removeViews(recycledCount, mTabStrip.getChildCount() - recycledCount);
+		}
+
+		//Reset the current position
+		mCurrentPosition = -1;
+		mSelectedTab = -1;
+		//The titles are only requested once their tab is bound
+		mTitleProvider = provider;
+		mTitles = new ArrayList<>(Collections.<CharSequence>nCopies(count, null));
+		mTabClickListener = listener;
+		mTabsVersion ++;
+
+		if(isDrawOnly()){
+			//The strip draws the tabs itself
+			mTabStrip.onDrawnTabsChanged();
+		}
+		else{
+			//Go through the tabs
+			for(int i = 0; i < count; i ++){
+				if(i < recycledCount){
+					//Recycle the existing tab view
+					rebindTab(i);
+				}
+				else{
+					//Create a new one and add it to the strip
+					mTabStrip.addView(createTab(i));
+				}
+			}
+		}
+
+		//The initial tab needs a view before it can be clicked
+		getTabView(initialTab);
+
+		if(mMetricsListener != null){
+			long nanos = System.nanoTime() - start;
+			mMetricsListener.onTabsBuilt(mInflationNanos, nanos - mInflationNanos, mInflatedViews,
+					mReusedViews);
+		}
+
+		//Click on the first tab if there is one. This will set the initial position
+		clickTab(initialTab);
+
+		startAsyncInflation();
+	}
+
+	/**
+	 * Creates the tab at the given position: a bound tab view, or a placeholder if the tabs are
+	 *  virtualized
+	 *
+	 * @param position The tab position
+	 * @return The view to add to the strip
+	 */
+	private View createTab(int position){
+		if(mVirtualized || isAsyncInflation()){
+			return obtainPlaceholder(estimateTabWidth(position));
+		}
+
+		View tabView = createTabView();
+		bindTabView(tabView, position, getTitle(position), mTabClickListener);
+		return tabView;
+	}
+
+	/**
+	 * Rebinds the existing tab at the given position to its current title
+	 *
+	 * @param position The tab position
+	 */
+	private void rebindTab(int position){
+		View tabView = mTabStrip.getChildAt(position);
+		if(tabView instanceof TabPlaceholder){
+			((TabPlaceholder) tabView).setWidth(estimateTabWidth(position), mDistributeEvenly);
+		}
+		else{
+			bindTabView(tabView, position, getTitle(position), mTabClickListener);
+			mReusedViews ++;
+		}
+	}
+
+	/* DRAW-ONLY */
+
+	/**
+	 * @return True if the tabs are drawn by the tab strip, false if they are views
+	 */
+	private boolean isDrawOnly(){
+		return mDrawOnly && mTabViewLayoutId == 0;
+	}
+
+	/**
+	 * Sets the tab strip up to draw the tabs itself, or to use tab views
+	 */
+	private void setUpDrawnTabs(){
+		if(!isDrawOnly()){
+			mTabStrip.setDrawnTabs(null, null, null, false, 0, false);
+			return;
+		}
+
+		//Draw the titles like the default tab view would show them
+		TextPaint titlePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+		titlePaint.setTypeface(Typeface.DEFAULT_BOLD);
+		titlePaint.setTextSize(TAB_VIEW_TEXT_SIZE_SP * mStyle.getScaledDensity());
+		mTabStrip.setDrawnTabs(new DrawnTabsSource(), titlePaint, getTabTextColors(), isAllCaps(),
+				(int) (TAB_VIEW_PADDING_DIPS * mStyle.getDensity()), mDistributeEvenly);
+	}
+
+	/* ASYNC INFLATION */
+
+	/**
+	 * @return True if the tab views are inflated in the background, false otherwise
+	 */
+	private boolean isAsyncInflation(){
+		return mAsyncInflation && mTabViewLayoutId != 0 && !mVirtualized;
+	}
+
+	/**
+	 * Starts inflating the tab views of the placeholders that are not being inflated yet
+	 */
+	private void startAsyncInflation(){
+		if(!isAsyncInflation()){
+			return;
+		}
+
+		int placeholders = 0;
+		for(int i = 0; i < mTabStrip.getChildCount(); i ++){
+			if(mTabStrip.getChildAt(i) instanceof TabPlaceholder){
+				placeholders ++;
+			}
+		}
+
+		int count = placeholders - mPendingInflations;
+		if(count > 0){
+			if(mAsyncTabInflater == null){
+				mAsyncTabInflater = new AsyncTabInflater();
+			}
+			mPendingInflations += count;
+			LayoutInflater inflater = LayoutInflater.from(getContext());
+			mAsyncTabInflater.inflate(inflater.cloneInContext(getContext()), mTabViewLayoutId,
+					mTabStrip, count, new AsyncTabInflater.Callback(){
+						@Override
+						public void onTabViewInflated(View tabView){
+							onAsyncTabViewInflated(tabView);
+						}
+					});
+		}
+		else if(mPendingInflations == 0 && mOnTabsInflatedListener != null){
+			//Nothing to inflate
+			mOnTabsInflatedListener.onTabsInflated();
+		}
+	}
+
+	/**
+	 * Adds a tab view that was inflated in the background in place of the first placeholder
+	 *
+	 * @param tabView The inflated tab view
+	 */
+	private void onAsyncTabViewInflated(View tabView){
+		mPendingInflations --;
+
+		onTabViewInflated(tabView);
+
+		boolean used = false;
+		for(int i = 0; i < mTabStrip.getChildCount() && !used; i ++){
+			if(mTabStrip.getChildAt(i) instanceof TabPlaceholder){
+				prepareCustomTabView(tabView);
+				materializeTab(i, tabView);
+				used = true;
+			}
+		}
+
+		//The placeholders might have already been filled (by getTabView() for example), in which
+		//  case the view can only go to the pool
+		if(!used){
+			releaseTabView(tabView);
+		}
+
+		if(mPendingInflations == 0 && mOnTabsInflatedListener != null){
+			mOnTabsInflatedListener.onTabsInflated();
+		}
+	}
+
+	/**
+	 * Cancels the tab views being inflated in the background
+	 */
+	private void cancelAsyncInflation(){
+		if(mAsyncTabInflater != null){
+			mAsyncTabInflater.cancel();
+		}
+		mPendingInflations = 0;
+	}
+
+	/* VIRTUALIZATION */
+
+	/**
+	 * Schedules an update of the virtual tabs for the next frame, if the tabs are virtualized
+	 */
+	private void scheduleVirtualTabsUpdate(){
+		if(mVirtualized && !mVirtualTabsUpdatePending){
+			mVirtualTabsUpdatePending = true;
+			ViewCompat.postOnAnimation(this, mVirtualTabsUpdater);
+		}
+	}
+
+	/**
+	 * Creates the tab views of the tabs that are on screen (with a margin of half of the width on
+	 *  each side), and replaces the other ones with placeholders
+	 */
+	private void updateVirtualTabs(){
+		//The positions are only known once the strip has been laid out
+		if(!mVirtualized || mTabStrip.isLayoutRequested()){
+			return;
+		}
+
+		int margin = getWidth() / 2;
+		int left = getScrollX() - margin;
+		int right = getScrollX() + getWidth() + margin;
+
+		//The tabs on screen are found from the cached tab edges instead of going through them all
+		int first = mTabStrip.findFirstTabEndingAfter(left - 1);
+		int last = mTabStrip.findFirstTabStartingAfter(right) - 1;
+
+		if(mVirtualFirst == -1 || mVirtualTabsVersion != mTabsVersion){
+			//The tabs have changed since the last update, so go through all of them
+			for(int i = 0; i < mTabStrip.getChildCount(); i ++){
+				updateVirtualTab(i, i >= first && i <= last);
+			}
+		}
+		else{
+			//Only the tabs that left or entered the screen need to change
+			for(int i = mVirtualFirst; i <= mVirtualLast; i ++){
+				if(i < first || i > last){
+					updateVirtualTab(i, false);
+				}
+			}
+			for(int i = first; i <= last; i ++){
+				if(i < mVirtualFirst || i > mVirtualLast){
+					updateVirtualTab(i, true);
+				}
+			}
+		}
+
+		mVirtualFirst = first;
+		mVirtualLast = last;
+		mVirtualTabsVersion = mTabsVersion;
+	}
+
+	/**
+	 * Creates the tab view of a tab that is on screen, or replaces the tab view of a tab that is
+	 *  off screen with a placeholder
+	 *
+	 * @param position The tab position
+	 * @param onScreen True if the tab is on screen, false otherwise
+	 */
+	private void updateVirtualTab(int position, boolean onScreen){
+		View child = mTabStrip.getChildAt(position);
+		if(onScreen && child instanceof TabPlaceholder){
+			materializeTab(position);
+		}
+		else if(!onScreen && !(child instanceof TabPlaceholder)){
+			recycleTab(position);
+		}
+	}
+
+	/**
+	 * Replaces the placeholder at the given position with a bound tab view
+	 *
+	 * @param position The tab position
+	 * @return The tab view
+	 */
+	private View materializeTab(int position){
+		View tabView;
+		if(mScrapTabViews.isEmpty()){
+			tabView = createTabView();
+		}
+		else{
+			tabView = mScrapTabViews.remove(mScrapTabViews.size() - 1);
+			mReusedViews ++;
+		}
+		return materializeTab(position, tabView);
+	}
+
+	/**
+	 * Replaces the placeholder at the given position with the given tab view, once bound
+	 *
+	 * @param position The tab position
+	 * @param tabView  The tab view, already set up
+	 * @return The tab view
+	 */
+	private View materializeTab(int position, View tabView){
+		TabPlaceholder placeholder = (TabPlaceholder) mTabStrip.getChildAt(position);
+
+		bindTabView(tabView, position, getTitle(position), mTabClickListener);
+		tabView.setSelected(position == mSelectedTab);
+
+		replaceTab(position, tabView);
+		mScrapPlaceholders.add(placeholder);
+		return tabView;
+	}
+
+	/**
+	 * Replaces the tab view at the given position with a placeholder of the same width, and keeps
+	 *  the tab view to be reused
+	 *
+	 * @param position The tab position
+	 */
+	private void recycleTab(int position){
+		View tabView = mTabStrip.getChildAt(position);
+
+		replaceTab(position, obtainPlaceholder(tabView.getWidth()));
+		mScrapTabViews.add(tabView);
+	}
+
+	/**
+	 * Swaps the tab at the given position between a tab view and a placeholder. The strip is
+	 *  only laid out again if the width changed, in which case the content is kept in place when
+	 *  the tab is left of the screen.
+	 *
+	 * @param position The tab position
+	 * @param tab      The tab view or the placeholder to put at that position
+	 */
+	private void replaceTab(int position, View tab){
+		int left = mTabStrip.getChildAt(position).getLeft();
+		int widthChange = mTabStrip.replaceTab(position, tab);
+		if(widthChange != 0 && left < getScrollX()){
+			mPendingScrollChange += widthChange;
+		}
+	}
+
+	/**
+	 * Releases the scrapped tab views to the {@link TabViewPool}. The views of layouts that are
+	 *  not pooled are dropped.
+	 */
+	private void releaseScrapTabViews(){
+		for(View tabView : mScrapTabViews){
+			releaseTabView(tabView);
+		}
+		mScrapTabViews.clear();
+	}
+
+	/**
+	 * @param width The placeholder width
+	 * @return A placeholder with the given width
+	 */
+	private TabPlaceholder obtainPlaceholder(int width){
+		TabPlaceholder placeholder = mScrapPlaceholders.isEmpty() ? new TabPlaceholder(getContext())
+				: mScrapPlaceholders.remove(mScrapPlaceholders.size() - 1);
+		placeholder.setWidth(width, mDistributeEvenly);
+		return placeholder;
+	}
+
+	/**
+	 * Estimates the width of a tab that has not been measured yet, based on the default tab view.
+	 *  The titles of the virtualized tabs are not requested until they are shown, so those that
+	 *  have not been requested yet get a fixed estimate.
+	 *
+	 * @param position The tab position
+	 * @return The estimated tab width
+	 */
+	private int estimateTabWidth(int position){
+		//The restored tabs start with the width they had
+		if(mRestoredWidths != null && position < mRestoredWidths.length &&
+				mRestoredWidths[position] > 0){
+			return mRestoredWidths[position];
+		}
+
+		CharSequence title = mVirtualized ? mTitles.get(position) : getTitle(position);
+		if(title == null){
+			return (int) (TAB_VIEW_ESTIMATED_WIDTH_DIPS * mStyle.getDensity());
+		}
+
+		if(mTabWidthPaint == null){
+			mTabWidthPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			mTabWidthPaint.setTypeface(Typeface.DEFAULT_BOLD);
+		}
+		//The font scale might have changed
+		mTabWidthPaint.setTextSize(TAB_VIEW_TEXT_SIZE_SP * mStyle.getScaledDensity());
+
+		int padding = (int) (TAB_VIEW_PADDING_DIPS * mStyle.getDensity());
+		return TitleWidthCache.getWidth(mTabWidthPaint, title.toString(), isAllCaps()) +
+				2 * padding;
+	}
+
+	/**
+	 * Adds the tabs based on a list of Strings to use as tab titles
+	 *
+	 * @param callback   The {@link Callback} to call when a tab is clicked
+	 * @param initialTab The initial tab selected
+	 * @param titles     The variable list of titles
+	 */
+	public void addTabs(Callback callback, int initialTab, List<String> titles){
+		addTabs(callback, initialTab, new ListTitleProvider(new ArrayList<>(titles)));
+	}
+
+	/**
+	 * Adds the tabs based on a list of Strings to use as tab titles.
+	 *  Assumes that the first tab is the selected one but will not call the callback
+	 *
+	 * @param callback The {@link Callback} to call when a tab is clicked
+	 * @param titles   The titles for the tabs
+	 */
+	public void addTabs(Callback callback, List<String> titles){
+		addTabs(callback, -1, titles);
+	}
+
+	/**
+	 * Adds the tabs based on the given titles
+	 *
+	 * @param callback   The {@link Callback} to use when a tab is selected
+	 * @param initialTab The initial tab selected
+	 * @param titles     The variable list of titles
+	 */
+	public void addTabs(Callback callback, int initialTab, String... titles){
+		addTabs(callback, initialTab, new ListTitleProvider(Arrays.asList(titles.clone())));
+	}
+
+	/**
+	 * Adds the tabs based on the given titles.
+	 *  Assumes that the first tab is the selected one but will not call the callback
+	 *
+	 * @param callback The {@link Callback} to call when a tab is clicked
+	 * @param titles   The variable list of titles
+	 */
+	public void addTabs(Callback callback, String... titles){
+		addTabs(callback, -1, titles);
+	}
+
+	/**
+	 * Adds the tabs based on a {@link TitleProvider}. The titles are only requested from the
+	 *  provider when their tab is bound, and are used as is.
+	 *
+	 * @param callback   The {@link Callback} to call when a tab is clicked
+	 * @param initialTab The initial tab selected
+	 * @param provider   The {@link TitleProvider} for the tab titles
+	 */
+	public void addTabs(Callback callback, int initialTab, TitleProvider provider){
+		addTabs(new TabClickListener(callback), initialTab, provider);
+	}
+
+	/**
+	 * Adds the tabs based on a {@link TitleProvider}.
+	 *  Assumes that the first tab is the selected one but will not call the callback
+	 *
+	 * @param callback The {@link Callback} to call when a tab is clicked
+	 * @param provider The {@link TitleProvider} for the tab titles
+	 */
+	public void addTabs(Callback callback, TitleProvider provider){
+		addTabs(callback, -1, provider);
+	}
+
+	/**
+	 * Begins a set of changes to the current tabs, which are all applied at once when the
+	 *  {@link TabTransaction} is committed. Only for tabs added with addTabs() or restored from
+	 *  the saved state: the tabs of a {@link ViewPager} follow its {@link PagerAdapter}.
+	 *
+	 * @return The {@link TabTransaction}
+	 * @throws IllegalStateException If the tabs follow a {@link ViewPager}, or if they were
+	 *  neither added nor restored
+	 */
+	public TabTransaction beginTransaction(){
+		if(mViewPager != null){
+			throw new IllegalStateException("The tabs of a ViewPager follow its PagerAdapter");
+		}
+		//The restored tabs can be changed before their callback is set with setCallback()
+		if(mTabClickListener == null){
+			throw new IllegalStateException("The tabs need to be added before they can be changed");
+		}
+		return new TabTransaction();
+	}
+
+	/**
+	 * Applies the changes of a {@link TabTransaction} to the tabs. The tab views that are kept
+	 *  are only rebound if they moved or were retitled, and the strip is only laid out once.
+	 *
+	 * @param sources The previous position of each new tab, -1 for the added tabs
+	 * @param titles  The title of each new tab, null for the tabs that keep their title
+	 */
+	private void applyTransaction(List<Integer> sources, List<CharSequence> titles){
+		//The tab views being inflated will be requested again if they are still needed
+		cancelAsyncInflation();
+
+		int newCount = sources.size();
+		int oldCurrentPosition = mCurrentPosition;
+		int oldSelectedTab = mSelectedTab;
+		mCurrentPosition = -1;
+		mSelectedTab = -1;
+
+		//Carry over the titles, content descriptions, icons, badges, and selection of the tabs
+		//  that were kept
+		int[] sourcePositions = new int[newCount];
+		List<CharSequence> newTitles = new ArrayList<>(newCount);
+		SparseArray<String> contentDescriptions = new SparseArray<>();
+		SparseIntArray tabIconIds = new SparseIntArray();
+		SparseArray<CharSequence> tabBadges = new SparseArray<>();
+		for(int i = 0; i < newCount; i ++){
+			int source = sources.get(i);
+			CharSequence title = titles.get(i);
+			if(source != -1){
+				if(title == null){
+					title = mTitles.get(source);
+				}
+				String contentDescription = mContentDescriptions.get(source, null);
+				if(contentDescription != null){
+					contentDescriptions.put(i, contentDescription);
+				}
+				int iconId = mTabIconIds.get(source, 0);
+				if(iconId != 0){
+					tabIconIds.put(i, iconId);
+				}
+				CharSequence badge = mTabBadges.get(source);
+				if(badge != null){
+					tabBadges.put(i, badge);
+				}
+				if(source == oldCurrentPosition){
+					mCurrentPosition = i;
+				}
+				if(source == oldSelectedTab){
+					mSelectedTab = i;
+				}
+			}
+			sourcePositions[i] = source;
+			newTitles.add(title);
+		}
+
+		//The drawn tabs have no tab views to move
+		List<View> tabViews = null;
+		List<View> removedTabViews = null;
+		if(!isDrawOnly()){
+			//Keep track of the tab views that were removed before moving the others
+			boolean[] kept = new boolean[mTabStrip.getChildCount()];
+			for(int source : sourcePositions){
+				if(source != -1){
+					kept[source] = true;
+				}
+			}
+			for(int i = 0; i < kept.length; i ++){
+				View tabView = mTabStrip.getChildAt(i);
+				if(kept[i]){
+					continue;
+				}
+				if(tabView instanceof TabPlaceholder){
+					mScrapPlaceholders.add((TabPlaceholder) tabView);
+				}
+				else if(mVirtualized){
+					mScrapTabViews.add(tabView);
+				}
+				else{
+					//Released to the pool once they are out of the strip
+					if(removedTabViews == null){
+						removedTabViews = new ArrayList<>();
+					}
+					removedTabViews.add(tabView);
+				}
+			}
+
+			//Get the tab views in their new order
+			tabViews = new ArrayList<>(newCount);
+			for(int i = 0; i < newCount; i ++){
+				int source = sourcePositions[i];
+				tabViews.add(source == -1 ? null : mTabStrip.getChildAt(source));
+			}
+		}
+
+		mTitleProvider = new MovedTitleProvider(mTitleProvider, sourcePositions);
+		mTitles = newTitles;
+		mContentDescriptions = contentDescriptions;
+		mTabIconIds = tabIconIds;
+		mTabBadges = tabBadges;
+		mTabsVersion ++;
+
+		if(isDrawOnly()){
+			//The strip draws the tabs itself
+			mTabStrip.onDrawnTabsChanged();
+		}
+		else{
+			//Create the added tabs, and rebind the ones that moved or were retitled
+			for(int i = 0; i < newCount; i ++){
+				View tabView = tabViews.get(i);
+				if(tabView == null){
+					tabViews.set(i, createTab(i));
+				}
+				else if(tabView instanceof TabPlaceholder){
+					if(titles.get(i) != null){
+						((TabPlaceholder) tabView).setWidth(estimateTabWidth(i), mDistributeEvenly);
+					}
+				}
+				else if(titles.get(i) != null || sourcePositions[i] != i){
+					bindTabView(tabView, i, getTitle(i), mTabClickListener);
+				}
+				tabViews.get(i).setSelected(i == mSelectedTab);
+			}
+
+			mTabStrip.replaceTabs(tabViews);
+
+			if(removedTabViews != null){
+				for(View tabView : removedTabViews){
+					releaseTabView(tabView);
+				}
+			}
+		}
+
+		if(oldSelectedTab != -1 && mSelectedTab == -1 && newCount > 0){
+			//The selected tab was removed, select the one that took its place
+			clickTab(Math.min(oldSelectedTab, newCount - 1));
+		}
+		else if(mCurrentPosition != -1){
+			setPageScroll(mCurrentPosition, 0f, true);
+		}
+
+		startAsyncInflation();
+	}
+
+	/**
+	 * {@link ViewPager.OnPageChangeListener} to use to update the selector
+	 */
+	private class InternalViewPagerListener implements ViewPager.OnPageChangeListener {
+		/**
+		 * The current scroll state. By default idle so that the indicator is scrolled to a tab
+		 *  when not using a ViewPager.
+		 */
+		private int mScrollState = ViewPager.SCROLL_STATE_IDLE;
+
+		@Override
+		public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels){
+			//This can be called several times per frame, so only update once per frame
+			setPageScroll(position, positionOffset, false);
+
+			//Prefetch the page the user is dragging toward once past the threshold
+			if(mOnPrefetchListener != null && mScrollState == ViewPager.SCROLL_STATE_DRAGGING){
+				if(position == mCurrentPosition && positionOffset > 0f &&
+						positionOffset >= mPrefetchThreshold){
+					prefetch(position + 1);
+				}
+				else if(position == mCurrentPosition - 1 &&
+						1f - positionOffset >= mPrefetchThreshold){
+					prefetch(position);
+				}
+			}
+
+			//Call the page listeners. The array is never modified, so a listener being added or
+			//  removed during the dispatch only applies to the next one
+			ViewPager.OnPageChangeListener[] listeners = mPageChangeListeners;
+			for(int i = 0; i < listeners.length; i ++){
+				listeners[i].onPageScrolled(position, positionOffset, positionOffsetPixels);
+			}
+		}
+
+		@Override
+		public void onPageScrollStateChanged(int state) {
+			mScrollState = state;
+			if(state == ViewPager.SCROLL_STATE_IDLE){
+				mPrefetchedPosition = -1;
+			}
+
+			//Call the page listeners
+			ViewPager.OnPageChangeListener[] listeners = mPageChangeListeners;
+			for(int i = 0; i < listeners.length; i ++){
+				listeners[i].onPageScrollStateChanged(state);
+			}
+		}
+
+		@Override
+		public void onPageSelected(int position) {
+			//Update the current position (only useful when using this with a ViewPager)
+			mCurrentPosition = position;
+			mPrefetchedPosition = -1;
+			if(mViewPager == null){
+				//Without a ViewPager there are no page scrolls to follow, so animate to the tab
+				animateToTab(position);
+			}
+			else if(mScrollState == ViewPager.SCROLL_STATE_IDLE){
+				setPageScroll(position, 0f, true);
+			}
+
+			//Only the previously and newly selected tabs change their selected state
+			setSelectedTab(position);
+
+			//Call the page listeners
+			ViewPager.OnPageChangeListener[] listeners = mPageChangeListeners;
+			for(int i = 0; i < listeners.length; i ++){
+				listeners[i].onPageSelected(position);
+			}
+		}
+	}
+
+	/**
+	 * How a custom tab view was inflated: the layout params and the background from its layout,
+	 *  and the configuration of its resources
+	 */
+	private static class InflatedTabState {
+		private final int mWidth;
+		private final float mWeight;
+		private final Drawable mBackground;
+		private final Configuration mConfiguration;
+
+		/**
+		 * Default Constructor
+		 *
+		 * @param tabView       The newly inflated tab view
+		 * @param configuration The configuration it was inflated with
+		 */
+		InflatedTabState(View tabView, Configuration configuration){
+			LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) tabView.getLayoutParams();
+			mWidth = lp.width;
+			mWeight = lp.weight;
+			mBackground = tabView.getBackground();
+			mConfiguration = configuration;
+		}
+	}
+
+	/**
+	 * Empty view that takes the place of a tab view when the tabs are virtualized
+	 */
+	private static class TabPlaceholder extends View {
+		/**
+		 * Default Constructor
+		 *
+		 * @param context The app context
+		 */
+		public TabPlaceholder(Context context){
+			super(context);
+			setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.MATCH_PARENT));
+		}
+
+		/**
+		 * @param width            The placeholder width
+		 * @param distributeEvenly True if the tabs are distributed evenly, in which case the width
+		 *                         is ignored
+		 */
+		void setWidth(int width, boolean distributeEvenly){
+			LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) getLayoutParams();
+			int newWidth = distributeEvenly ? 0 : width;
+			float newWeight = distributeEvenly ? 1 : 0;
+			//Only lay the placeholder out again if its size changed
+			if(lp.width != newWidth || lp.weight != newWeight){
+				lp.width = newWidth;
+				lp.weight = newWeight;
+				requestLayout();
+			}
+		}
+	}
+
+	/**
+	 * {@link DataSetObserver} that keeps the tabs in sync with the {@link PagerAdapter}
+	 */
+	private class PagerAdapterObserver extends DataSetObserver {
+		@Override
+		public void onChanged(){
+			if(mViewPager == null || mViewPager.getAdapter() != mPagerAdapter){
+				//The pager's adapter was replaced, so this one no longer needs to be observed
+				stopObservingPagerAdapter();
+				return;
+			}
+
+			//The ViewPager has not processed the change yet, so its current item might be out of
+			//  date: keep the current tab for now, and select the right one once it has
+			syncTabs(mViewPager.getCurrentItem());
+			removeCallbacks(mPagerSelectionUpdater);
+			post(mPagerSelectionUpdater);
+		}
+	}
+
+	/**
+	 * The tabs drawn by the tab strip in the draw-only mode
+	 */
+	private class DrawnTabsSource implements TabStrip.DrawnTabs {
+		@Override
+		public int getCount(){
+			return mTitles.size();
+		}
+
+		@Override
+		public CharSequence getTitle(int position){
+			return TabLayout.this.getTitle(position);
+		}
+
+		@Override
+		public CharSequence peekTitle(int position){
+			return mTitles.get(position);
+		}
+
+		@Override
+		public CharSequence getContentDescription(int position){
+			return mContentDescriptions.get(position, null);
+		}
+
+		@Override
+		public void onTabPressed(int position){
+			prefetch(position);
+		}
+
+		@Override
+		public void onTabClicked(int position){
+			mTabClickListener.onTabClick(position);
+		}
+	}
+
+	/**
+	 * {@link TitleProvider} backed by a list of titles
+	 */
+	private static class ListTitleProvider implements TitleProvider {
+		/**
+		 * The titles
+		 */
+		private final List<? extends CharSequence> mTitles;
+
+		/**
+		 * Default Constructor
+		 *
+		 * @param titles The titles
+		 */
+		public ListTitleProvider(List<? extends CharSequence> titles){
+			mTitles = titles;
+		}
+
+		@Override
+		public int getCount(){
+			return mTitles.size();
+		}
+
+		@Override
+		public CharSequence getTitle(int position){
+			return mTitles.get(position);
+		}
+	}
+
+	/**
+	 * {@link TitleProvider} for tabs that have been moved by a {@link TabTransaction}: the titles
+	 *  that have not been requested yet are requested from the original provider at the original
+	 *  position of their tab
+	 */
+	private static class MovedTitleProvider implements TitleProvider {
+		/**
+		 * The original {@link TitleProvider}
+		 */
+		private final TitleProvider mProvider;
+		/**
+		 * The original position of each tab, -1 for the tabs that were added
+		 */
+		private final int[] mPositions;
+
+		/**
+		 * Default Constructor
+		 *
+		 * @param provider  The {@link TitleProvider} the tabs were moved from
+		 * @param positions The previous position of each tab, -1 for the tabs that were added
+		 */
+		public MovedTitleProvider(TitleProvider provider, int[] positions){
+			//The positions are remapped below, and the caller still uses its own
+			positions = positions.clone();
+
+			//Go back to the original provider instead of chaining the moves
+			if(provider instanceof MovedTitleProvider){
+				MovedTitleProvider moved = (MovedTitleProvider) provider;
+				for(int i = 0; i < positions.length; i ++){
+					if(positions[i] != -1){
+						positions[i] = moved.mPositions[positions[i]];
+					}
+				}
+				provider = moved.mProvider;
+			}
+			mProvider = provider;
+			mPositions = positions;
+		}
+
+		@Override
+		public int getCount(){
+			return mPositions.length;
+		}
+
+		@Override
+		public CharSequence getTitle(int position){
+			//The titles of the added tabs are always known
+			return mPositions[position] == -1 ? null : mProvider.getTitle(mPositions[position]);
+		}
+	}
+
+	/**
+	 * {@link TitleProvider} that requests the page titles from a {@link PagerAdapter}
+	 */
+	private static class PagerTitleProvider implements TitleProvider {
+		/**
+		 * The {@link PagerAdapter}
+		 */
+		private final PagerAdapter mAdapter;
+
+		/**
+		 * Default Constructor
+		 *
+		 * @param adapter The {@link PagerAdapter}
+		 */
+		public PagerTitleProvider(PagerAdapter adapter){
+			mAdapter = adapter;
+		}
+
+		@Override
+		public int getCount(){
+			return mAdapter.getCount();
+		}
+
+		@Override
+		public CharSequence getTitle(int position){
+			return mAdapter.getPageTitle(position);
+		}
+	}
+
+	/**
+	 * {@link View.OnClickListener} used for the tabs
+	 */
+	private class TabClickListener implements OnClickListener, OnTouchListener{
+		/**
+		 * The callback to call when a tab is selected for when using the tabs without a ViewPager
+		 */
+		private Callback mCallback = null;
+		/**
+		 * The listener to use when using the tabs without a ViewPager
 		 */
 		private InternalViewPagerListener mListener = null;
 
@@ -704,31 +3085,245 @@ public class TabLayout extends HorizontalScrollView {
 		 */
 		public TabClickListener(){}
 
+		@Override
+		public boolean onTouch(View v, MotionEvent event){
+			//A pressed tab is likely to be clicked, so its page can be prefetched
+			if(event.getAction() == MotionEvent.ACTION_DOWN){
+				prefetch((Integer) v.getTag(R.id.tab_index));
+			}
+			//Let the tab handle the touch
+			return false;
+		}
+
 		@Override
 		public void onClick(View v){
-			//Go through the tabs
-			for (int i = 0; i < mTabStrip.getChildCount(); i++) {
-				if (v == mTabStrip.getChildAt(i)){
-					//If this tab is already open, do nothing
-					if(i == mCurrentPosition){
-						return;
-					}
-					//Set the new position
-					mCurrentPosition = i;
+			//Get the position of the tab
+			onTabClick((Integer) v.getTag(R.id.tab_index));
+		}
 
-					//Is using the ViewPager, set the new item
-					if(mListener == null){
-						mViewPager.setCurrentItem(i);
-					}
-					//If not, call the appropriate listeners/callbacks
-					else{
-						mListener.onPageSelected(i);
-						mCallback.onTabSelected(i);
-					}
-					return;
+		/**
+		 * Called when a tab is clicked
+		 *
+		 * @param i The tab position
+		 */
+		void onTabClick(int i){
+			//If this tab is already open, do nothing
+			if(i == mCurrentPosition){
+				return;
+			}
+			//Set the new position
+			mCurrentPosition = i;
+
+			//Is using the ViewPager, set the new item
+			if(mListener == null){
+				mViewPager.setCurrentItem(i);
+			}
+			//If not, call the appropriate listeners/callbacks
+			else{
+				mListener.onPageSelected(i);
+				//The restored tabs might not have a callback yet
+				if(mCallback != null){
+					mCallback.onTabSelected(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A set of changes to the tabs, started with {@link #beginTransaction()}. The positions
+	 *  given to each change are the positions after the previous changes. Nothing changes until
+	 *  the transaction is committed, at which point the tab layout is only laid out once.
+	 *  The selected tab stays selected wherever it ends up. If it is removed, the tab that takes
+	 *  its place is selected and the {@link Callback} is called.
+	 */
+	public class TabTransaction {
+		/**
+		 * The position each tab had before the transaction, -1 for the added tabs
+		 */
+		private final List<Integer> mSources;
+		/**
+		 * The new title of each tab, null for the tabs that keep their title
+		 */
+		private final List<CharSequence> mNewTitles;
+		/**
+		 * The version of the tabs the transaction began with
+		 */
+		private final int mVersion;
+		/**
+		 * True if the transaction has been committed, false otherwise
+		 */
+		private boolean mCommitted;
+
+		/**
+		 * Default Constructor
+		 */
+		private TabTransaction(){
+			int count = mTitles.size();
+			mSources = new ArrayList<>(count);
+			mNewTitles = new ArrayList<>(Collections.<CharSequence>nCopies(count, null));
+			for(int i = 0; i < count; i ++){
+				mSources.add(i);
+			}
+			mVersion = mTabsVersion;
+		}
+
+		/**
+		 * Adds a tab at the end
+		 *
+		 * @param title The tab title
+		 * @return The transaction
+		 */
+		public TabTransaction addTab(CharSequence title){
+			return addTab(mSources.size(), title);
+		}
+
+		/**
+		 * Inserts a tab
+		 *
+		 * @param position The position to insert the tab at
+		 * @param title    The tab title
+		 * @return The transaction
+		 */
+		public TabTransaction addTab(int position, CharSequence title){
+			mSources.add(position, -1);
+			mNewTitles.add(position, title == null ? "" : title);
+			return this;
+		}
+
+		/**
+		 * Removes a tab
+		 *
+		 * @param position The position of the tab to remove
+		 * @return The transaction
+		 */
+		public TabTransaction removeTab(int position){
+			mSources.remove(position);
+			mNewTitles.remove(position);
+			return this;
+		}
+
+		/**
+		 * Moves a tab
+		 *
+		 * @param from The current position of the tab
+		 * @param to   The position to move the tab to
+		 * @return The transaction
+		 */
+		public TabTransaction moveTab(int from, int to){
+			int source = mSources.remove(from);
+			CharSequence title = mNewTitles.remove(from);
+			mSources.add(to, source);
+			mNewTitles.add(to, title);
+			return this;
+		}
+
+		/**
+		 * Changes the title of a tab
+		 *
+		 * @param position The position of the tab
+		 * @param title    The new title
+		 * @return The transaction
+		 */
+		public TabTransaction setTabTitle(int position, CharSequence title){
+			mNewTitles.set(position, title == null ? "" : title);
+			return this;
+		}
+
+		/**
+		 * Applies all of the changes to the tabs
+		 */
+		public void commit(){
+			if(mCommitted){
+				throw new IllegalStateException("The transaction has already been committed");
+			}
+			if(mVersion != mTabsVersion){
+				throw new IllegalStateException("The tabs changed since the transaction began");
+			}
+			mCommitted = true;
+			applyTransaction(mSources, mNewTitles);
+		}
+	}
+
+	/**
+	 * The state saved across configuration changes
+	 */
+	static class SavedState extends BaseSavedState {
+		/**
+		 * The current position
+		 */
+		private int mCurrentPosition;
+		/**
+		 * The scroll position
+		 */
+		private int mScrollX;
+		/**
+		 * The tab titles, null if the tabs are restored from a ViewPager
+		 */
+		private CharSequence[] mTitles;
+		/**
+		 * The tab widths, -1 for the tabs that had not been laid out. Null if the tabs are
+		 *  restored from a ViewPager.
+		 */
+		private int[] mWidths;
+
+		/**
+		 * Constructor used when saving the state
+		 *
+		 * @param superState The state of the superclass
+		 */
+		SavedState(Parcelable superState){
+			super(superState);
+		}
+
+		/**
+		 * Constructor used when reading the state from a {@link Parcel}
+		 *
+		 * @param in The {@link Parcel}
+		 */
+		private SavedState(Parcel in){
+			super(in);
+			mCurrentPosition = in.readInt();
+			mScrollX = in.readInt();
+			int count = in.readInt();
+			if(count != -1){
+				mTitles = new CharSequence[count];
+				for(int i = 0; i < count; i ++){
+					mTitles[i] = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(in);
+				}
+				mWidths = in.createIntArray();
+			}
+		}
+
+		@Override
+		public void writeToParcel(Parcel out, int flags){
+			super.writeToParcel(out, flags);
+			out.writeInt(mCurrentPosition);
+			out.writeInt(mScrollX);
+			if(mTitles == null){
+				out.writeInt(-1);
+			}
+			else{
+				out.writeInt(mTitles.length);
+				//Keep the styling of the titles
+				for(CharSequence title : mTitles){
+					TextUtils.writeToParcel(title, out, flags);
 				}
+				out.writeIntArray(mWidths);
 			}
 		}
+
+		public static final Parcelable.Creator<SavedState> CREATOR =
+				new Parcelable.Creator<SavedState>(){
+					@Override
+					public SavedState createFromParcel(Parcel in){
+						return new SavedState(in);
+					}
+
+					@Override
+					public SavedState[] newArray(int size){
+						return new SavedState[size];
+					}
+				};
 	}
 
 	/**
@@ -1,15 +1,29 @@
 package com.guerinet.materialtabs;
 
-import android.R;
 import android.content.Context;
+import android.content.res.ColorStateList;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.text.TextPaint;
+import android.text.TextUtils;
 import android.util.AttributeSet;
-import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
 import android.widget.LinearLayout;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
 /*
  * Copyright 2014 Google Inc. All rights reserved.
  *
@@ -26,10 +40,53 @@ import android.widget.LinearLayout;
  * limitations under the License.
  */
 class TabStrip extends LinearLayout {
+	/**
+	 * The tabs drawn by the strip itself, in the draw-only mode
+	 */
+	interface DrawnTabs {
+		/**
+		 * @return The number of tabs
+		 */
+		int getCount();
+
+		/**
+		 * @param position The tab position
+		 * @return The tab title
+		 */
+		CharSequence getTitle(int position);
+
+		/**
+		 * @param position The tab position
+		 * @return The tab title if it has already been requested, null otherwise
+		 */
+		CharSequence peekTitle(int position);
+
+		/**
+		 * @param position The tab position
+		 * @return The tab content description, null if none
+		 */
+		CharSequence getContentDescription(int position);
+
+		/**
+		 * Called when a tab is pressed
+		 *
+		 * @param position The tab position
+		 */
+		void onTabPressed(int position);
+
+		/**
+		 * Called when a tab is clicked
+		 *
+		 * @param position The tab position
+		 */
+		void onTabClicked(int position);
+	}
+
 	private static final int DEFAULT_BOTTOM_BORDER_THICKNESS_DIPS = 0;
 	private static final byte DEFAULT_BOTTOM_BORDER_COLOR_ALPHA = 0x26;
 	private static final int SELECTED_INDICATOR_THICKNESS_DIPS = 3;
 	private static final int DEFAULT_SELECTED_INDICATOR_COLOR = 0xFF33B5E5;
+	private static final int ESTIMATED_TITLE_WIDTH_DIPS = 64;
 
 	private final int mBottomBorderThickness;
 	private final Paint mBottomBorderPaint;
@@ -39,18 +96,88 @@ class TabStrip extends LinearLayout {
 
 	private final int mDefaultBottomBorderColor;
 
-	private int mSelectedPosition;
-	private float mSelectionOffset;
+	/**
+	 * The tab edges, the selection and the indicator edges and color, updated on every frame
+	 */
+	private final IndicatorState mIndicator;
+	/**
+	 * The area to redraw after the indicator changed
+	 */
+	private final int[] mDirtyBounds = new int[4];
+
+	/**
+	 * The view the indicator is rendered with instead of being drawn by the strip, null if none.
+	 * It is one pixel wide and is moved and sized with its translation and scale.
+	 */
+	private View mIndicatorView;
+	private int mIndicatorViewColor;
 
 	private TabLayout.TabColorizer mCustomTabColorizer;
 	private final SimpleTabColorizer mDefaultTabColorizer;
 
+	private TabLayout.MetricsListener mMetricsListener;
+
+	/**
+	 * The tabs drawn by the strip, null if the tabs are child views
+	 */
+	private DrawnTabs mDrawnTabs;
+	private TextPaint mTitlePaint;
+	private final Paint.FontMetricsInt mTitleFontMetrics = new Paint.FontMetricsInt();
+	/**
+	 * The colors of the titles of the drawn tabs, and of the title of the selected one
+	 */
+	private int mTitleColor;
+	private int mSelectedTitleColor;
+	/**
+	 * The selected drawn tab, -1 if none
+	 */
+	private int mSelectedDrawnTab = -1;
+	private boolean mTitleAllCaps;
+	private int mTitlePadding;
+	private boolean mDrawnTabsEvenly;
+	private boolean mDrawnTabsChanged;
+	/**
+	 * True if some of the drawn tabs that scrolled into view have not requested their title yet
+	 */
+	private boolean mDrawnTitlesMissing;
+	/**
+	 * The width given to the drawn tabs whose title has not been requested yet
+	 */
+	private final int mEstimatedTitleWidth;
+	/**
+	 * How much the drawn tabs left of the visible area grew when their titles were requested,
+	 * which the tab layout scrolls by to keep the visible tabs in place
+	 */
+	private int mDrawnScrollChange;
+	private DrawnTabsAccessibilityHelper mAccessibilityHelper;
+
+	/**
+	 * The titles of the drawn tabs as they are drawn, and their widths, updated when the tabs
+	 * are measured and laid out. Only the titles of the tabs that have been visible are
+	 * requested, the other ones are null and have an estimated width.
+	 */
+	private int mDrawnTabCount;
+	private String[] mDrawnTitles = new String[0];
+	private int[] mDrawnTitleWidths = new int[0];
+	private CharSequence[] mShownTitles = new CharSequence[0];
+	private int[] mShownTitleWidths = new int[0];
+
+	/**
+	 * The drawn tab that is being pressed, -1 if none
+	 */
+	private int mPressedTab = -1;
+	private final Rect mClipBounds = new Rect();
+	/**
+	 * The y coordinate of the baseline the tabs are aligned on as of the last layout, -1 if none
+	 */
+	private int mBaselineY = -1;
+
 	TabStrip(Context context) {
-		this(context, null);
+		this(context, TabStyle.get(context));
 	}
 
-	TabStrip(Context context, AttributeSet attrs) {
-		this(context, attrs, DEFAULT_SELECTED_INDICATOR_COLOR);
+	TabStrip(Context context, TabStyle style) {
+		this(context, null, style, DEFAULT_SELECTED_INDICATOR_COLOR);
 	}
 
 	/**
@@ -58,23 +185,30 @@ class TabStrip extends LinearLayout {
 	 *
 	 * @param context       The app context
 	 * @param attrs         The attribute set
+	 * @param style         The resolved theme and resource values
 	 * @param selectedColor The color to use for the strip when the tab is selected
 	 */
-	TabStrip(Context context, AttributeSet attrs, int selectedColor){
+	TabStrip(Context context, AttributeSet attrs, TabStyle style, int selectedColor){
 		super(context, attrs);
 		setWillNotDraw(false);
 
-		final float density = getResources().getDisplayMetrics().density;
+		final float density = style.getDensity();
+		final int themeForegroundColor = style.getForegroundColor();
 
-		TypedValue outValue = new TypedValue();
-		context.getTheme().resolveAttribute(R.attr.colorForeground, outValue, true);
-		final int themeForegroundColor =  outValue.data;
-
-		mDefaultBottomBorderColor = setColorAlpha(themeForegroundColor,
+		mDefaultBottomBorderColor = IndicatorMath.setColorAlpha(themeForegroundColor,
 				DEFAULT_BOTTOM_BORDER_COLOR_ALPHA);
 
 		mDefaultTabColorizer = new SimpleTabColorizer();
 		mDefaultTabColorizer.setIndicatorColors(selectedColor);
+		mIndicator = new IndicatorState(new IndicatorState.ColorSource() {
+			@Override
+			public int getIndicatorColor(int position) {
+				final TabLayout.TabColorizer tabColorizer = mCustomTabColorizer != null
+						? mCustomTabColorizer
+						: mDefaultTabColorizer;
+				return tabColorizer.getIndicatorColor(position);
+			}
+		});
 
 		mBottomBorderThickness = (int) (DEFAULT_BOTTOM_BORDER_THICKNESS_DIPS * density);
 		mBottomBorderPaint = new Paint();
@@ -82,84 +216,704 @@ class TabStrip extends LinearLayout {
 
 		mSelectedIndicatorThickness = (int) (SELECTED_INDICATOR_THICKNESS_DIPS * density);
 		mSelectedIndicatorPaint = new Paint();
+
+		mEstimatedTitleWidth = (int) (ESTIMATED_TITLE_WIDTH_DIPS * density);
 	}
 
 	void setCustomTabColorizer(TabLayout.TabColorizer customTabColorizer) {
 		mCustomTabColorizer = customTabColorizer;
-		invalidate();
+		mIndicator.onColorsChanged();
+		onIndicatorChanged();
+	}
+
+	void setMetricsListener(TabLayout.MetricsListener metricsListener) {
+		mMetricsListener = metricsListener;
 	}
 
 	void setSelectedIndicatorColors(int... colors) {
 		// Make sure that the custom colorizer is removed
 		mCustomTabColorizer = null;
 		mDefaultTabColorizer.setIndicatorColors(colors);
+		mIndicator.onColorsChanged();
+		onIndicatorChanged();
+	}
+
+	/**
+	 * @param linear True to blend the indicator colors in linear light, false to blend them in
+	 *               sRGB
+	 */
+	void setLinearColorBlending(boolean linear) {
+		if (mIndicator.setLinearColorBlending(linear)) {
+			onIndicatorChanged();
+		}
+	}
+
+	/**
+	 * @return The thickness of the selection indicator
+	 */
+	int getIndicatorThickness() {
+		return mSelectedIndicatorThickness;
+	}
+
+	/**
+	 * Sets the view to render the indicator with, so that moving the indicator only changes the
+	 * view's render properties instead of redrawing the strip. Requires API 11+.
+	 *
+	 * @param indicatorView The one pixel wide indicator view, null to draw the indicator in the
+	 *                      strip
+	 */
+	void setIndicatorView(View indicatorView) {
+		mIndicatorView = indicatorView;
+		if (indicatorView != null) {
+			ViewCompat.setPivotX(indicatorView, 0);
+			mIndicatorViewColor = mIndicator.getColor();
+			indicatorView.setBackgroundColor(mIndicatorViewColor);
+			updateIndicatorView();
+		}
 		invalidate();
 	}
 
 	void onViewPagerPageChanged(int position, float positionOffset) {
-		mSelectedPosition = position;
-		mSelectionOffset = positionOffset;
+		mIndicator.setSelection(position, positionOffset);
+		onIndicatorChanged();
+	}
+
+	/**
+	 * Starts moving the indicator from wherever it currently is to the given tab. The
+	 * transition is then driven with {@link #setIndicatorTransitionFraction(float)}, and ends
+	 * with the next call to {@link #onViewPagerPageChanged(int, float)}.
+	 *
+	 * @param position The position of the tab to move to
+	 * @return True if the transition was started, false if the tab has not been laid out yet
+	 */
+	boolean startIndicatorTransition(int position) {
+		return mIndicator.startTransition(position);
+	}
+
+	/**
+	 * @param fraction How far along the indicator transition is, between 0 and 1, or past either
+	 *                 end with an interpolator that anticipates or overshoots
+	 */
+	void setIndicatorTransitionFraction(float fraction) {
+		mIndicator.setTransitionFraction(fraction);
+		onIndicatorChanged();
+	}
+
+	/**
+	 * Updates the rendering of the indicator after a change of its edges or of its color
+	 */
+	private void onIndicatorChanged() {
+		if (mIndicatorView != null) {
+			updateIndicatorView();
+		} else if (mIndicator.getDirtyBounds(getHeight(),
+				Math.max(mSelectedIndicatorThickness, mBottomBorderThickness), mDirtyBounds)) {
+			// Only the area covered by the old and new indicators needs to be redrawn
+			invalidate(mDirtyBounds[0], mDirtyBounds[1], mDirtyBounds[2], mDirtyBounds[3]);
+		}
+	}
+
+	/**
+	 * Moves, sizes and colors the indicator view
+	 */
+	private void updateIndicatorView() {
+		ViewCompat.setTranslationX(mIndicatorView, mIndicator.getLeft());
+		ViewCompat.setScaleX(mIndicatorView, mIndicator.getRight() - mIndicator.getLeft());
+
+		final int color = mIndicator.getColor();
+		if (color != mIndicatorViewColor) {
+			mIndicatorViewColor = color;
+			mIndicatorView.setBackgroundColor(color);
+		}
+	}
+
+	/**
+	 * Switches to the draw-only mode, where the strip draws the tab titles itself instead of
+	 * having a child view per tab, or back to child views
+	 *
+	 * @param drawnTabs        The tabs to draw, null to go back to child views
+	 * @param titlePaint       The paint to draw the titles with
+	 * @param titleColors      The colors of the titles, by selected state
+	 * @param titleAllCaps     True if the titles are drawn in all caps, false otherwise
+	 * @param titlePadding     The padding around the titles
+	 * @param distributeEvenly True if the tabs should all have the same width, false otherwise
+	 */
+	void setDrawnTabs(DrawnTabs drawnTabs, TextPaint titlePaint, ColorStateList titleColors,
+			boolean titleAllCaps, int titlePadding, boolean distributeEvenly) {
+		mDrawnTabs = drawnTabs;
+		mTitlePaint = titlePaint;
+		if (titleColors != null) {
+			mTitleColor = titleColors.getDefaultColor();
+			mSelectedTitleColor = titleColors.getColorForState(SELECTED_STATE_SET, mTitleColor);
+		}
+		mTitleAllCaps = titleAllCaps;
+		mTitlePadding = titlePadding;
+		mDrawnTabsEvenly = distributeEvenly;
+		mPressedTab = -1;
+
+		// The drawn tabs are exposed to accessibility as virtual views
+		mAccessibilityHelper = drawnTabs != null ? new DrawnTabsAccessibilityHelper() : null;
+		ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+		onDrawnTabsChanged();
+	}
+
+	/**
+	 * Measures and draws the drawn tabs again after they have changed
+	 */
+	void onDrawnTabsChanged() {
+		mDrawnTabsChanged = true;
+		requestLayout();
+		invalidate();
+		if (mAccessibilityHelper != null) {
+			mAccessibilityHelper.invalidateRoot();
+		}
+	}
+
+	/**
+	 * Updates the title colors and the accessibility state of the drawn tabs after the selected
+	 * one changed
+	 *
+	 * @param oldPosition The previously selected tab, -1 if none
+	 * @param newPosition The newly selected tab, -1 if none
+	 */
+	void onDrawnTabSelected(int oldPosition, int newPosition) {
+		mSelectedDrawnTab = newPosition;
+		if (mTitleColor != mSelectedTitleColor) {
+			invalidateDrawnTab(oldPosition);
+			invalidateDrawnTab(newPosition);
+		}
+
+		if (mAccessibilityHelper != null) {
+			if (oldPosition != -1) {
+				mAccessibilityHelper.invalidateVirtualView(oldPosition);
+			}
+			if (newPosition != -1) {
+				mAccessibilityHelper.invalidateVirtualView(newPosition);
+			}
+		}
+	}
+
+	/**
+	 * Redraws a drawn tab
+	 *
+	 * @param position The tab position, -1 if none
+	 */
+	private void invalidateDrawnTab(int position) {
+		if (position >= 0 && position < mIndicator.getTabCount()) {
+			invalidate(mIndicator.getTabLeft(position), 0, mIndicator.getTabRight(position),
+					getHeight());
+		}
+	}
+
+	/**
+	 * Requests the titles of the drawn tabs that scrolled into view, and lays the tabs out
+	 * again if any of them has not requested its title yet
+	 *
+	 * @param scrollX The scroll position of the tab layout
+	 * @param width   The width of the tab layout
+	 */
+	void onDrawnTabsScrolled(int scrollX, int width) {
+		if (mDrawnTabs == null || mDrawnTitlesMissing) {
+			return;
+		}
+		final int tabCount = Math.min(mIndicator.getTabCount(), mDrawnTabCount);
+		for (int i = findFirstTabEndingAfter(scrollX);
+				i < tabCount && mIndicator.getTabLeft(i) < scrollX + width; i++) {
+			if (mDrawnTitles[i] == null) {
+				mDrawnTitlesMissing = true;
+				requestLayout();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return How much the drawn tabs left of the visible area grew since the last call, when
+	 * their titles were requested
+	 */
+	int consumeDrawnScrollChange() {
+		final int change = mDrawnScrollChange;
+		mDrawnScrollChange = 0;
+		return change;
+	}
+
+	/**
+	 * Gets the titles of the visible drawn tabs and their widths, which come from the title
+	 * width cache. The titles that have not been requested are only requested if their tab is
+	 * visible, the other tabs are given an estimated width.
+	 */
+	private void updateDrawnTitles() {
+		final int count = mDrawnTabs.getCount();
+		// The tabs are the same ones unless they changed, only more of their titles are known
+		final boolean sameTabs = !mDrawnTabsChanged && count == mDrawnTabCount;
+		if (mDrawnTitles.length < count) {
+			mDrawnTitles = new String[count];
+			mDrawnTitleWidths = new int[count];
+			mShownTitles = new CharSequence[count];
+			mShownTitleWidths = new int[count];
+		}
+
+		// The visible area, in the coordinates of the strip
+		final View parent = (View) getParent();
+		final int visibleLeft = parent != null ? parent.getScrollX() : 0;
+		final int visibleWidth = parent != null && parent.getWidth() > 0
+				? parent.getWidth()
+				: getResources().getDisplayMetrics().widthPixels;
+		final int visibleRight = visibleLeft + visibleWidth;
+
+		int left = 0;
+		for (int i = 0; i < count; i++) {
+			final int width;
+			if (sameTabs && mDrawnTitles[i] != null) {
+				width = mDrawnTitleWidths[i];
+			} else {
+				final int estimatedRight = mDrawnTabsEvenly
+						? (int) ((long) visibleWidth * (i + 1) / count)
+						: left + mEstimatedTitleWidth + 2 * mTitlePadding;
+				CharSequence title = mDrawnTabs.peekTitle(i);
+				if (title == null && left < visibleRight && estimatedRight > visibleLeft) {
+					title = mDrawnTabs.getTitle(i);
+				}
+
+				if (title != null) {
+					// The titles are drawn as plain text
+					final String text = title.toString();
+					width = TitleWidthCache.getWidth(mTitlePaint, text, mTitleAllCaps);
+					mDrawnTitles[i] = mTitleAllCaps ? text.toUpperCase(Locale.getDefault()) : text;
+				} else {
+					width = mEstimatedTitleWidth;
+					mDrawnTitles[i] = null;
+				}
+
+				// Keep the visible tabs in place when a tab left of them changes width
+				if (sameTabs && !mDrawnTabsEvenly && i < mIndicator.getTabCount() &&
+						mIndicator.getTabLeft(i) < visibleLeft) {
+					mDrawnScrollChange += width - mDrawnTitleWidths[i];
+				}
+			}
+			mDrawnTitleWidths[i] = width;
+			left = mDrawnTabsEvenly
+					? (int) ((long) visibleWidth * (i + 1) / count)
+					: left + width + 2 * mTitlePadding;
+		}
+
+		// Clear the titles of the tabs that were removed
+		for (int i = count; i < mDrawnTabCount; i++) {
+			mDrawnTitles[i] = null;
+			mShownTitles[i] = null;
+		}
+		mDrawnTabCount = count;
+		mDrawnTabsChanged = false;
+		mDrawnTitlesMissing = false;
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		if (mDrawnTabs == null) {
+			super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+			return;
+		}
+
+		if (mDrawnTabsChanged || mDrawnTitlesMissing) {
+			updateDrawnTitles();
+		}
+
+		int width = 0;
+		for (int i = 0; i < mDrawnTabCount; i++) {
+			width += mDrawnTitleWidths[i] + 2 * mTitlePadding;
+		}
+		mTitlePaint.getFontMetricsInt(mTitleFontMetrics);
+		final int height = mTitleFontMetrics.bottom - mTitleFontMetrics.top + 2 * mTitlePadding;
+
+		setMeasuredDimension(resolveSize(width, widthMeasureSpec),
+				resolveSize(height, heightMeasureSpec));
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		super.onLayout(changed, l, t, r, b);
+
+		if (mDrawnTabs != null) {
+			layoutDrawnTabs(r - l);
+		} else {
+			// Cache the tab edges so that they don't need to be looked up on every frame
+			final int childCount = getChildCount();
+			mIndicator.setTabCount(childCount);
+			mBaselineY = -1;
+			for (int i = 0; i < childCount; i++) {
+				View child = getChildAt(i);
+				mIndicator.setTabEdges(i, child.getLeft(), child.getRight());
+				if (mBaselineY == -1 && isBaselineAligned(child)) {
+					mBaselineY = child.getTop() + child.getBaseline();
+				}
+			}
+		}
+
+		mIndicator.updateBounds();
+		if (mIndicatorView != null) {
+			updateIndicatorView();
+		}
+	}
+
+	/**
+	 * Lays out the drawn tabs side by side, and shortens the titles that do not fit
+	 *
+	 * @param width The width of the strip
+	 */
+	private void layoutDrawnTabs(int width) {
+		final int count = mDrawnTabCount;
+		mIndicator.setTabCount(count);
+
+		int left = 0;
+		for (int i = 0; i < count; i++) {
+			final int right = mDrawnTabsEvenly
+					? (int) ((long) width * (i + 1) / count)
+					: left + mDrawnTitleWidths[i] + 2 * mTitlePadding;
+			mIndicator.setTabEdges(i, left, right);
+
+			final int available = right - left - 2 * mTitlePadding;
+			if (mDrawnTitles[i] == null) {
+				// The title will be requested once the tab is visible
+				mShownTitles[i] = null;
+				mShownTitleWidths[i] = 0;
+			} else if (mDrawnTitleWidths[i] > available) {
+				mShownTitles[i] = TextUtils.ellipsize(mDrawnTitles[i], mTitlePaint,
+						Math.max(0, available), TextUtils.TruncateAt.END);
+				mShownTitleWidths[i] = (int) Math.ceil(mTitlePaint.measureText(mShownTitles[i], 0,
+						mShownTitles[i].length()));
+			} else {
+				mShownTitles[i] = mDrawnTitles[i];
+				mShownTitleWidths[i] = mDrawnTitleWidths[i];
+			}
+			left = right;
+		}
+	}
+
+	/**
+	 * @param x The x coordinate within the strip
+	 * @return The first tab that ends after the given coordinate as of the last layout, the
+	 * number of tabs if none
+	 */
+	int findFirstTabEndingAfter(float x) {
+		return mIndicator.findFirstTabEndingAfter(x);
+	}
+
+	/**
+	 * @param x The x coordinate within the strip
+	 * @return The first tab that starts after the given coordinate as of the last layout, the
+	 * number of tabs if none
+	 */
+	int findFirstTabStartingAfter(float x) {
+		return mIndicator.findFirstTabStartingAfter(x);
+	}
+
+	/**
+	 * @param x The x coordinate within the strip
+	 * @return The tab at the given coordinate as of the last layout, -1 if none
+	 */
+	int getTabAt(float x) {
+		final int position = findFirstTabEndingAfter(x);
+		return position < mIndicator.getTabCount() && mIndicator.getTabLeft(position) <= x
+				? position
+				: -1;
+	}
+
+	/**
+	 * Clicks on a drawn tab
+	 *
+	 * @param position The tab position
+	 */
+	private void clickDrawnTab(int position) {
+		playSoundEffect(SoundEffectConstants.CLICK);
+		mDrawnTabs.onTabClicked(position);
+		mAccessibilityHelper.sendEventForVirtualView(position,
+				AccessibilityEvent.TYPE_VIEW_CLICKED);
+	}
+
+	@Override
+	public boolean onTouchEvent(MotionEvent event) {
+		if (mDrawnTabs == null) {
+			return super.onTouchEvent(event);
+		}
+
+		switch (event.getActionMasked()) {
+			case MotionEvent.ACTION_DOWN:
+				mPressedTab = getTabAt(event.getX());
+				if (mPressedTab != -1) {
+					mDrawnTabs.onTabPressed(mPressedTab);
+				}
+				return mPressedTab != -1;
+			case MotionEvent.ACTION_UP:
+				// Only click if the touch ended on the tab it started on
+				if (mPressedTab != -1 && getTabAt(event.getX()) == mPressedTab) {
+					clickDrawnTab(mPressedTab);
+				}
+				mPressedTab = -1;
+				return true;
+			case MotionEvent.ACTION_CANCEL:
+				mPressedTab = -1;
+				return true;
+			default:
+				return mPressedTab != -1;
+		}
+	}
+
+	@Override
+	public boolean dispatchHoverEvent(MotionEvent event) {
+		// Let the accessibility helper handle the touch exploration of the drawn tabs
+		if (mAccessibilityHelper != null && mAccessibilityHelper.dispatchHoverEvent(event)) {
+			return true;
+		}
+		return super.dispatchHoverEvent(event);
+	}
+
+	/**
+	 * Replaces the tabs in one go, with a single layout pass. The tabs that are already in the
+	 *  strip are moved without being detached from the window, the new ones are added, and the
+	 *  ones that are not in the given list are removed.
+	 *
+	 * @param tabs The new tabs, in order
+	 */
+	void replaceTabs(List<View> tabs) {
+		Set<View> oldTabs = Collections.newSetFromMap(new IdentityHashMap<View, Boolean>());
+		final int oldCount = getChildCount();
+		for (int i = 0; i < oldCount; i++) {
+			oldTabs.add(getChildAt(i));
+		}
+
+		detachAllViewsFromParent();
+		for (int i = 0; i < tabs.size(); i++) {
+			View tab = tabs.get(i);
+			if (oldTabs.remove(tab)) {
+				attachViewToParent(tab, i, tab.getLayoutParams());
+			} else {
+				addViewInLayout(tab, i, tab.getLayoutParams(), true);
+			}
+		}
+		// Whatever is left has been removed
+		for (View tab : oldTabs) {
+			removeDetachedView(tab, false);
+		}
+
+		requestLayout();
 		invalidate();
 	}
 
+	/**
+	 * Replaces the tab at the given position. If the new tab has the same width as the old one,
+	 * it is measured and laid out in its place without laying out the whole strip again.
+	 * Otherwise a layout is requested.
+	 *
+	 * @param position The tab position
+	 * @param tab      The new tab, which must not have a parent
+	 * @return How much wider the new tab is than the old one, 0 if the strip has not been laid
+	 * out since the tabs last changed
+	 */
+	int replaceTab(int position, View tab) {
+		final View oldTab = getChildAt(position);
+		final int left = oldTab.getLeft();
+		final int width = oldTab.getWidth();
+		removeViewInLayout(oldTab);
+		addViewInLayout(tab, position, tab.getLayoutParams(), true);
+
+		if (isLayoutRequested() || position >= mIndicator.getTabCount()) {
+			// The tab will be laid out with the others
+			requestLayout();
+			return 0;
+		}
+
+		final LinearLayout.LayoutParams lp = (LinearLayout.LayoutParams) tab.getLayoutParams();
+		final int widthSpec;
+		if (lp.weight > 0) {
+			// The tabs are distributed evenly, so the width does not depend on the tab
+			widthSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+		} else if (lp.width >= 0) {
+			widthSpec = MeasureSpec.makeMeasureSpec(lp.width, MeasureSpec.EXACTLY);
+		} else {
+			widthSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+		}
+		final int height = getHeight() - getPaddingTop() - getPaddingBottom();
+		tab.measure(widthSpec, getChildMeasureSpec(
+				MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY), 0, lp.height));
+
+		final int top;
+		if (isBaselineAligned(tab)) {
+			top = mBaselineY != -1 ? mBaselineY - tab.getBaseline() : -1;
+		} else {
+			top = getPaddingTop();
+		}
+
+		if (tab.getMeasuredWidth() != width || top < getPaddingTop() ||
+				top + tab.getMeasuredHeight() > getPaddingTop() + height) {
+			// The tab does not fit in the place of the old one
+			requestLayout();
+			return tab.getMeasuredWidth() - width;
+		}
+
+		tab.layout(left, top, left + width, top + tab.getMeasuredHeight());
+		invalidate(left, 0, left + width, getHeight());
+		return 0;
+	}
+
+	/**
+	 * @param child The child view
+	 * @return True if the child is aligned with the others on its baseline, false otherwise
+	 */
+	private boolean isBaselineAligned(View child) {
+		return isBaselineAligned() && child.getLayoutParams().height != LayoutParams.MATCH_PARENT &&
+				child.getBaseline() != -1;
+	}
+
+	/**
+	 * @return The number of tabs as of the last layout
+	 */
+	int getTabCount() {
+		return mIndicator.getTabCount();
+	}
+
+	/**
+	 * @param position The tab position
+	 * @return The left edge of the tab as of the last layout, -1 if it has not been laid out
+	 */
+	int getTabLeft(int position) {
+		return position >= 0 && position < mIndicator.getTabCount()
+				? mIndicator.getTabLeft(position)
+				: -1;
+	}
+
+	/**
+	 * @param position The tab position
+	 * @return The right edge of the tab as of the last layout, -1 if it has not been laid out
+	 */
+	int getTabRight(int position) {
+		return position >= 0 && position < mIndicator.getTabCount()
+				? mIndicator.getTabRight(position)
+				: -1;
+	}
+
 	@Override
 	protected void onDraw(Canvas canvas) {
+		final long start = mMetricsListener != null ? System.nanoTime() : 0;
 		final int height = getHeight();
-		final int childCount = getChildCount();
-		final TabLayout.TabColorizer tabColorizer = mCustomTabColorizer != null
-				? mCustomTabColorizer
-				: mDefaultTabColorizer;
-
-		// Thick colored underline below the current selection
-		if (childCount > 0) {
-			View selectedTitle = getChildAt(mSelectedPosition);
-			int left = selectedTitle.getLeft();
-			int right = selectedTitle.getRight();
-			int color = tabColorizer.getIndicatorColor(mSelectedPosition);
-
-			if (mSelectionOffset > 0f && mSelectedPosition < (getChildCount() - 1)) {
-				int nextColor = tabColorizer.getIndicatorColor(mSelectedPosition + 1);
-				if (color != nextColor) {
-					color = blendColors(nextColor, color, mSelectionOffset);
-				}
 
-				// Draw the selection partway between the tabs
-				View nextTitle = getChildAt(mSelectedPosition + 1);
-				left = (int) (mSelectionOffset * nextTitle.getLeft() +
-						(1.0f - mSelectionOffset) * left);
-				right = (int) (mSelectionOffset * nextTitle.getRight() +
-						(1.0f - mSelectionOffset) * right);
-			}
+		if (mDrawnTabs != null) {
+			drawTabTitles(canvas, height);
+		}
 
-			mSelectedIndicatorPaint.setColor(color);
+		// Thick colored underline below the current selection, unless it has its own view
+		if (mIndicatorView == null && mIndicator.hasIndicator()) {
+			mSelectedIndicatorPaint.setColor(mIndicator.getColor());
 
-			canvas.drawRect(left, height - mSelectedIndicatorThickness, right,
-					height, mSelectedIndicatorPaint);
+			canvas.drawRect(mIndicator.getLeft(), height - mSelectedIndicatorThickness,
+					mIndicator.getRight(), height, mSelectedIndicatorPaint);
 		}
 
 		// Thin underline along the entire bottom edge
 		canvas.drawRect(0, height - mBottomBorderThickness, getWidth(), height, mBottomBorderPaint);
+
+		if (mMetricsListener != null) {
+			mMetricsListener.onStripDrawn(System.nanoTime() - start);
+		}
 	}
 
 	/**
-	 * Set the alpha value of the {@code color} to be the given {@code alpha} value.
+	 * Draws the titles of the drawn tabs that are within the canvas clip
+	 *
+	 * @param canvas The canvas
+	 * @param height The height of the strip
 	 */
-	private static int setColorAlpha(int color, byte alpha) {
-		return Color.argb(alpha, Color.red(color), Color.green(color), Color.blue(color));
+	private void drawTabTitles(Canvas canvas, int height) {
+		canvas.getClipBounds(mClipBounds);
+
+		// Center the titles vertically
+		mTitlePaint.getFontMetricsInt(mTitleFontMetrics);
+		final int baseline = (height - (mTitleFontMetrics.bottom - mTitleFontMetrics.top)) / 2 -
+				mTitleFontMetrics.top;
+
+		final int tabCount = mIndicator.getTabCount();
+		for (int i = findFirstTabEndingAfter(mClipBounds.left);
+				i < tabCount && mIndicator.getTabLeft(i) < mClipBounds.right; i++) {
+			final CharSequence title = mShownTitles[i];
+			if (title == null) {
+				// The tab is laid out again with its title
+				continue;
+			}
+			final int tabLeft = mIndicator.getTabLeft(i);
+			final float x = tabLeft +
+					(mIndicator.getTabRight(i) - tabLeft - mShownTitleWidths[i]) / 2f;
+			mTitlePaint.setColor(i == mSelectedDrawnTab ? mSelectedTitleColor : mTitleColor);
+			canvas.drawText(title, 0, title.length(), x, baseline, mTitlePaint);
+		}
 	}
 
 	/**
-	 * Blend {@code color1} and {@code color2} using the given ratio.
-	 *
-	 * @param ratio of which to blend. 1.0 will return {@code color1}, 0.5 will give an even blend,
-	 *              0.0 will return {@code color2}.
+	 * Exposes the drawn tabs to accessibility services as virtual views
 	 */
-	private static int blendColors(int color1, int color2, float ratio) {
-		final float inverseRation = 1f - ratio;
-		float r = (Color.red(color1) * ratio) + (Color.red(color2) * inverseRation);
-		float g = (Color.green(color1) * ratio) + (Color.green(color2) * inverseRation);
-		float b = (Color.blue(color1) * ratio) + (Color.blue(color2) * inverseRation);
-		return Color.rgb((int) r, (int) g, (int) b);
+	private class DrawnTabsAccessibilityHelper extends ExploreByTouchHelper {
+		private final Rect mTabBounds = new Rect();
+
+		DrawnTabsAccessibilityHelper() {
+			super(TabStrip.this);
+		}
+
+		/**
+		 * @param position The tab position
+		 * @return The text to describe the tab with
+		 */
+		private CharSequence getTabDescription(int position) {
+			if (position >= mDrawnTabs.getCount()) {
+				return "";
+			}
+			final CharSequence contentDescription = mDrawnTabs.getContentDescription(position);
+			return contentDescription != null ? contentDescription : mDrawnTabs.getTitle(position);
+		}
+
+		@Override
+		protected int getVirtualViewAt(float x, float y) {
+			final int position = getTabAt(x);
+			return position != -1 ? position : INVALID_ID;
+		}
+
+		@Override
+		protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+			for (int i = 0; i < mIndicator.getTabCount(); i++) {
+				virtualViewIds.add(i);
+			}
+		}
+
+		@Override
+		protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+			event.setContentDescription(getTabDescription(virtualViewId));
+		}
+
+		@Override
+		protected void onPopulateNodeForVirtualView(int virtualViewId,
+				AccessibilityNodeInfoCompat node) {
+			node.setContentDescription(getTabDescription(virtualViewId));
+
+			// The bounds cannot be empty, even for a tab that is being removed
+			if (virtualViewId < mIndicator.getTabCount()) {
+				mTabBounds.set(mIndicator.getTabLeft(virtualViewId), 0,
+						mIndicator.getTabRight(virtualViewId), getHeight());
+			} else {
+				mTabBounds.set(0, 0, 1, 1);
+			}
+			node.setBoundsInParent(mTabBounds);
+
+			node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+			node.setClickable(true);
+			node.setSelected(virtualViewId == mIndicator.getSelectedPosition());
+		}
+
+		@Override
+		protected boolean onPerformActionForVirtualView(int virtualViewId, int action,
+				Bundle arguments) {
+			if (action == AccessibilityNodeInfoCompat.ACTION_CLICK &&
+					virtualViewId < mIndicator.getTabCount()) {
+				clickDrawnTab(virtualViewId);
+				return true;
+			}
+			return false;
+		}
 	}
 
 	private static class SimpleTabColorizer implements TabLayout.TabColorizer {
@@ -167,7 +921,7 @@ class TabStrip extends LinearLayout {
 
 		@Override
 		public final int getIndicatorColor(int position) {
-			return mIndicatorColors[position % mIndicatorColors.length];
+			return IndicatorMath.getIndicatorColor(mIndicatorColors, position);
 		}
 
 		void setIndicatorColors(int... colors) {
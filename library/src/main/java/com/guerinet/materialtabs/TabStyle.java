@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.util.TypedValue;
+
+import java.util.WeakHashMap;
+
+/**
+ * Snapshot of the theme and resource values used to build the tabs. There is one per theme,
+ * shared by all of the {@link TabLayout}s using that theme, and it is recomputed when the
+ * configuration changes. Building the tabs then only reads primitives.
+ */
+final class TabStyle {
+	/**
+	 * The snapshots, by theme
+	 */
+	private static final WeakHashMap<Resources.Theme, TabStyle> sStyles = new WeakHashMap<>();
+	/**
+	 * The configuration the snapshot was taken with
+	 */
+	private final Configuration mConfiguration;
+	/**
+	 * The screen density
+	 */
+	private final float mDensity;
+	/**
+	 * The scaled density for fonts
+	 */
+	private final float mScaledDensity;
+	/**
+	 * The theme's foreground color
+	 */
+	private final int mForegroundColor;
+	/**
+	 * The resolved resource Ids, by theme attribute
+	 */
+	private final SparseIntArray mAttributeResourceIds = new SparseIntArray();
+	/**
+	 * The resolved colors, by color resource Id
+	 */
+	private final SparseIntArray mColors = new SparseIntArray();
+	/**
+	 * The resolved color state lists, by color resource Id
+	 */
+	private final SparseArray<ColorStateList> mColorStateLists = new SparseArray<>();
+	/**
+	 * The {@link TypedValue} used to resolve the theme attributes
+	 */
+	private final TypedValue mTypedValue = new TypedValue();
+
+	/**
+	 * Default Constructor
+	 *
+	 * @param context The context to take the snapshot from
+	 */
+	private TabStyle(Context context){
+		Resources resources = context.getResources();
+		mConfiguration = new Configuration(resources.getConfiguration());
+
+		DisplayMetrics metrics = resources.getDisplayMetrics();
+		mDensity = metrics.density;
+		mScaledDensity = metrics.scaledDensity;
+
+		context.getTheme().resolveAttribute(android.R.attr.colorForeground, mTypedValue, true);
+		mForegroundColor = mTypedValue.data;
+	}
+
+	/**
+	 * @param context The context
+	 * @return The snapshot for the context's theme and current configuration
+	 */
+	static synchronized TabStyle get(Context context){
+		Resources.Theme theme = context.getTheme();
+		TabStyle style = sStyles.get(theme);
+
+		if(style == null ||
+				style.mConfiguration.diff(context.getResources().getConfiguration()) != 0){
+			style = new TabStyle(context);
+			sStyles.put(theme, style);
+		}
+		return style;
+	}
+
+	/**
+	 * @return The configuration the snapshot was taken with, which must not be modified
+	 */
+	Configuration getConfiguration(){
+		return mConfiguration;
+	}
+
+	/**
+	 * @return The screen density
+	 */
+	float getDensity(){
+		return mDensity;
+	}
+
+	/**
+	 * @return The scaled density for fonts
+	 */
+	float getScaledDensity(){
+		return mScaledDensity;
+	}
+
+	/**
+	 * @return The theme's foreground color
+	 */
+	int getForegroundColor(){
+		return mForegroundColor;
+	}
+
+	/**
+	 * @param context   The context, with the theme of this snapshot
+	 * @param attribute The theme attribute
+	 * @return The resource Id the attribute resolves to
+	 */
+	synchronized int getResourceId(Context context, int attribute){
+		int index = mAttributeResourceIds.indexOfKey(attribute);
+		if(index >= 0){
+			return mAttributeResourceIds.valueAt(index);
+		}
+
+		context.getTheme().resolveAttribute(attribute, mTypedValue, true);
+		mAttributeResourceIds.put(attribute, mTypedValue.resourceId);
+		return mTypedValue.resourceId;
+	}
+
+	/**
+	 * @param context The context, with the theme of this snapshot
+	 * @param colorId The color resource Id
+	 * @return The color
+	 */
+	@SuppressWarnings("deprecation")
+	synchronized int getColor(Context context, int colorId){
+		int index = mColors.indexOfKey(colorId);
+		if(index >= 0){
+			return mColors.valueAt(index);
+		}
+
+		int color = context.getResources().getColor(colorId);
+		mColors.put(colorId, color);
+		return color;
+	}
+
+	/**
+	 * @param context The context, with the theme of this snapshot
+	 * @param colorId The color or color selector resource Id
+	 * @return The colors, by state
+	 */
+	@SuppressWarnings("deprecation")
+	synchronized ColorStateList getColorStateList(Context context, int colorId){
+		ColorStateList colors = mColorStateLists.get(colorId);
+		if(colors == null){
+			colors = context.getResources().getColorStateList(colorId);
+			mColorStateLists.put(colorId, colors);
+		}
+		return colors;
+	}
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide pool of custom tab views, shared by all of the {@link TabLayout}s. The views are
+ *  kept by layout Id, and a {@link TabLayout} using the same layout takes its new tab views from
+ *  the pool before inflating any. The {@link TabLayout}s release their tab views to the pool
+ *  when they are detached from the window or cleared. The pool is opt-in: no views are kept for
+ *  a layout until its size is set with {@link #setMaxSize(int, int)}. It is emptied when the
+ *  system is low on memory or when the configuration changes, and the views inflated with
+ *  another configuration than the one of the requesting {@link TabLayout} are never handed out.
+ *  Must only be used on the main thread.
+ * <p>
+ * A view keeps a reference to the context it was inflated with, usually its Activity, and
+ *  resolved its theme from it. The pooled views are therefore only handed out to the
+ *  {@link TabLayout}s with the same context as the one that released them (the ones of the same
+ *  screen), and they are dropped when their Activity is destroyed. Before a view is pooled, the
+ *  listeners of the {@link TabLayout} that released it are removed, so that the view does not
+ *  keep that {@link TabLayout} either.
+ * <p>
+ * The {@link TabLayout} taking a pooled view resets its layout params and its background to the
+ *  ones it was inflated with before setting it up. The rest of the setup of the
+ *  {@link TabLayout} that released it (the title colors for example) is kept, so the
+ *  {@link TabLayout}s sharing a layout should set their tabs up the same way.
+ */
+public final class TabViewPool {
+	/**
+	 * The pooled views, keyed by layout Id
+	 */
+	private static final SparseArray<List<PooledView>> sPool = new SparseArray<>();
+	/**
+	 * The configuration the pooled views were inflated with, keyed by layout Id
+	 */
+	private static final SparseArray<Configuration> sConfigurations = new SparseArray<>();
+	/**
+	 * The maximum number of views kept for each layout Id, 0 (the default) to not pool them
+	 */
+	private static final SparseIntArray sMaxSizes = new SparseIntArray();
+	/**
+	 * The number of times a pooled view was handed out
+	 */
+	private static int sHitCount;
+	/**
+	 * The number of times a view was requested for a pooled layout, but none was available
+	 */
+	private static int sMissCount;
+	/**
+	 * True if the pool has been registered for the memory callbacks, false otherwise
+	 */
+	private static boolean sRegistered;
+
+	private TabViewPool(){}
+
+	/**
+	 * Sets the maximum number of views to keep for the given layout. Setting it to 0 stops
+	 *  pooling the views of that layout and drops the ones that were kept.
+	 *
+	 * @param layoutResId The layout Id, as passed to {@link TabLayout#setCustomTabView(int, int)}
+	 * @param maxSize     The maximum number of views to keep
+	 */
+	public static void setMaxSize(int layoutResId, int maxSize){
+		if(maxSize < 0){
+			throw new IllegalArgumentException("The pool size cannot be negative");
+		}
+		sMaxSizes.put(layoutResId, maxSize);
+
+		//Drop the views that no longer fit
+		List<PooledView> views = sPool.get(layoutResId);
+		if(views != null){
+			while(views.size() > maxSize){
+				views.remove(views.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * @param layoutResId The layout Id
+	 * @return True if the views of the given layout are pooled, false otherwise
+	 */
+	static boolean isPooled(int layoutResId){
+		return layoutResId != 0 && sMaxSizes.get(layoutResId) > 0;
+	}
+
+	/**
+	 * @param layoutResId   The layout Id
+	 * @param context       The context of the {@link TabLayout} the view will be used in
+	 * @param configuration The configuration the view will be used with
+	 * @return A pooled view of the given layout released with the same context and inflated
+	 *  with the same configuration, null if there is none
+	 */
+	static View acquire(int layoutResId, Context context, Configuration configuration){
+		if(!isPooled(layoutResId)){
+			return null;
+		}
+
+		dropIfConfigurationChanged(layoutResId, configuration);
+		List<PooledView> views = sPool.get(layoutResId);
+		if(views != null){
+			for(int i = views.size() - 1; i >= 0; i --){
+				if(views.get(i).mContext == context){
+					sHitCount ++;
+					return views.remove(i).mView;
+				}
+			}
+		}
+		sMissCount ++;
+		return null;
+	}
+
+	/**
+	 * Keeps a view that is no longer used to be handed out again, if there is room for it
+	 *
+	 * @param layoutResId   The layout Id the view was inflated from
+	 * @param view          The view, which must not have a parent nor any listener set by the
+	 *                      {@link TabLayout} that used it
+	 * @param context       The context of the {@link TabLayout} that used it
+	 * @param configuration The configuration the view was inflated with
+	 * @return True if the view was kept, false otherwise
+	 */
+	static boolean release(int layoutResId, View view, Context context,
+			Configuration configuration){
+		int maxSize = layoutResId != 0 ? sMaxSizes.get(layoutResId) : 0;
+		if(maxSize == 0){
+			return false;
+		}
+		//The views of a screen that is going away would only keep it in memory
+		Activity activity = getActivity(context);
+		if(activity != null && (activity.isFinishing() ||
+				(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB &&
+						activity.isChangingConfigurations()))){
+			return false;
+		}
+		register(context);
+
+		//A view of another configuration replaces the pooled ones: it is the screens being
+		//  destroyed that release their views after a configuration change
+		dropIfConfigurationChanged(layoutResId, configuration);
+		sConfigurations.put(layoutResId, configuration);
+		List<PooledView> views = sPool.get(layoutResId);
+		if(views == null){
+			views = new ArrayList<>(maxSize);
+			sPool.put(layoutResId, views);
+		}
+		if(views.size() >= maxSize){
+			return false;
+		}
+		for(PooledView pooledView : views){
+			if(pooledView.mView == view){
+				return false;
+			}
+		}
+		views.add(new PooledView(view, context));
+		return true;
+	}
+
+	/**
+	 * Drops the pooled views released with the given Activity, or with a context wrapping it
+	 *
+	 * @param activity The Activity
+	 */
+	private static void dropViews(Activity activity){
+		for(int i = 0; i < sPool.size(); i ++){
+			List<PooledView> views = sPool.valueAt(i);
+			for(int j = views.size() - 1; j >= 0; j --){
+				if(getActivity(views.get(j).mContext) == activity){
+					views.remove(j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param context The context
+	 * @return The Activity the context is or wraps, null if none
+	 */
+	private static Activity getActivity(Context context){
+		while(context instanceof ContextWrapper){
+			if(context instanceof Activity){
+				return (Activity) context;
+			}
+			context = ((ContextWrapper) context).getBaseContext();
+		}
+		return null;
+	}
+
+	/**
+	 * Drops the pooled views of the given layout if they were inflated with another configuration
+	 *
+	 * @param layoutResId   The layout Id
+	 * @param configuration The configuration
+	 */
+	private static void dropIfConfigurationChanged(int layoutResId, Configuration configuration){
+		Configuration pooledConfiguration = sConfigurations.get(layoutResId);
+		if(pooledConfiguration != null && pooledConfiguration.diff(configuration) != 0){
+			sPool.remove(layoutResId);
+			sConfigurations.remove(layoutResId);
+		}
+	}
+
+	/**
+	 * Registers the pool to be emptied when the system is low on memory or when the
+	 *  configuration changes, and to drop the views of the Activities that are destroyed
+	 *
+	 * @param context The context
+	 */
+	private static void register(Context context){
+		//The memory callbacks can only be registered on API 14+
+		if(sRegistered || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH){
+			return;
+		}
+		sRegistered = true;
+
+		context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2(){
+			@Override
+			public void onTrimMemory(int level){
+				//The pooled views keep their Activity, so drop them as soon as memory gets low
+				if(level >= TRIM_MEMORY_RUNNING_LOW){
+					clear();
+				}
+			}
+
+			@Override
+			public void onConfigurationChanged(Configuration newConfig){
+				//The pooled views were inflated with the resources of the old configuration
+				clear();
+			}
+
+			@Override
+			public void onLowMemory(){
+				clear();
+			}
+		});
+
+		Context applicationContext = context.getApplicationContext();
+		if(applicationContext instanceof Application){
+			((Application) applicationContext).registerActivityLifecycleCallbacks(
+					new Application.ActivityLifecycleCallbacks(){
+						@Override
+						public void onActivityCreated(Activity activity, Bundle state){}
+
+						@Override
+						public void onActivityStarted(Activity activity){}
+
+						@Override
+						public void onActivityResumed(Activity activity){}
+
+						@Override
+						public void onActivityPaused(Activity activity){}
+
+						@Override
+						public void onActivityStopped(Activity activity){}
+
+						@Override
+						public void onActivitySaveInstanceState(Activity activity, Bundle state){}
+
+						@Override
+						public void onActivityDestroyed(Activity activity){
+							dropViews(activity);
+						}
+					});
+		}
+	}
+
+	/**
+	 * Removes all of the pooled views. The pool sizes are kept.
+	 */
+	public static void clear(){
+		sPool.clear();
+		sConfigurations.clear();
+	}
+
+	/**
+	 * @return The number of times a pooled view was handed out instead of inflating a new one
+	 */
+	public static int getHitCount(){
+		return sHitCount;
+	}
+
+	/**
+	 * @return The number of times a view of a pooled layout had to be inflated
+	 */
+	public static int getMissCount(){
+		return sMissCount;
+	}
+
+	/**
+	 * A pooled view, with the context of the {@link TabLayout} that released it
+	 */
+	private static class PooledView {
+		private final View mView;
+		private final Context mContext;
+
+		private PooledView(View view, Context context){
+			mView = view;
+			mContext = context;
+		}
+	}
+}
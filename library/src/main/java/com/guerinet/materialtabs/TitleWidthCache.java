@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.support.v4.util.LruCache;
+
+import java.util.Locale;
+
+/**
+ * Process-wide cache of the measured tab title widths, keyed by title, the paint properties that
+ * change the width of a single line of text, caps transformation, and locale. Tab titles rarely
+ * change, so this avoids measuring them again when the tabs are rebuilt.
+ */
+final class TitleWidthCache {
+	/**
+	 * The maximum number of widths kept
+	 */
+	private static final int MAX_SIZE = 512;
+	/**
+	 * The cached widths
+	 */
+	private static final LruCache<Key, Integer> sCache = new LruCache<>(MAX_SIZE);
+	/**
+	 * The key used for the lookups, to avoid creating one per lookup
+	 */
+	private static final Key sLookupKey = new Key();
+
+	private TitleWidthCache(){}
+
+	/**
+	 * @param paint   The paint the title is drawn with
+	 * @param title   The title
+	 * @param allCaps True if the title is shown in all caps, false otherwise
+	 * @return The width of the title, in pixels
+	 */
+	static synchronized int getWidth(Paint paint, String title, boolean allCaps){
+		Locale locale = Locale.getDefault();
+		sLookupKey.set(title, paint, allCaps, locale);
+
+		Integer width = sCache.get(sLookupKey);
+		if(width == null){
+			String text = allCaps ? title.toUpperCase(locale) : title;
+			width = (int) Math.ceil(paint.measureText(text));
+			Key key = new Key();
+			key.set(title, paint, allCaps, locale);
+			sCache.put(key, width);
+		}
+		return width;
+	}
+
+	/**
+	 * Key of a cached width
+	 */
+	private static class Key {
+		private String mTitle;
+		private float mTextSize;
+		private float mTextScaleX;
+		private float mLetterSpacing;
+		private Typeface mTypeface;
+		private boolean mAllCaps;
+		private Locale mLocale;
+
+		void set(String title, Paint paint, boolean allCaps, Locale locale){
+			mTitle = title;
+			mTextSize = paint.getTextSize();
+			mTextScaleX = paint.getTextScaleX();
+			//The letter spacing only exists on 21+
+			mLetterSpacing = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ?
+					paint.getLetterSpacing() : 0;
+			mTypeface = paint.getTypeface();
+			mAllCaps = allCaps;
+			mLocale = locale;
+		}
+
+		@Override
+		public boolean equals(Object o){
+			if(!(o instanceof Key)){
+				return false;
+			}
+			Key key = (Key) o;
+			return mTextSize == key.mTextSize && mTextScaleX == key.mTextScaleX &&
+					mLetterSpacing == key.mLetterSpacing && mAllCaps == key.mAllCaps &&
+					mTypeface == key.mTypeface && mLocale.equals(key.mLocale) &&
+					mTitle.equals(key.mTitle);
+		}
+
+		@Override
+		public int hashCode(){
+			int result = mTitle.hashCode();
+			result = 31 * result + Float.floatToIntBits(mTextSize);
+			result = 31 * result + Float.floatToIntBits(mTextScaleX);
+			result = 31 * result + Float.floatToIntBits(mLetterSpacing);
+			result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+			result = 31 * result + (mAllCaps ? 1 : 0);
+			return 31 * result + mLocale.hashCode();
+		}
+	}
+}
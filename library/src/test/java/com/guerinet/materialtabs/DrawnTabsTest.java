@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the draw-only tabs only request the titles of the tabs that are visible
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DrawnTabsTest {
+	private static final int TAB_COUNT = 1000;
+
+	private TabLayout mTabLayout;
+	/**
+	 * The positions of the titles that were requested
+	 */
+	private final Set<Integer> mRequested = new HashSet<>();
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.setupActivity(Activity.class);
+		mTabLayout = new TabLayout(activity);
+		mTabLayout.setDrawOnly(true);
+		activity.setContentView(mTabLayout, new ViewGroup.LayoutParams(
+				ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+
+		mTabLayout.addTabs(new TabLayout.Callback() {
+			@Override
+			public void onTabSelected(int position) {}
+		}, new TabLayout.TitleProvider() {
+			@Override
+			public int getCount() {
+				return TAB_COUNT;
+			}
+
+			@Override
+			public CharSequence getTitle(int position) {
+				mRequested.add(position);
+				return "Tab " + position;
+			}
+		});
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+	}
+
+	/**
+	 * Only the first tabs request their titles, and the last ones do once scrolled to
+	 */
+	@Test
+	public void visibleTitles() {
+		assertTrue(mRequested.contains(0));
+		assertFalse(mRequested.contains(TAB_COUNT - 1));
+
+		mTabLayout.scrollTo(mTabLayout.getTabLeft(TAB_COUNT - 1), 0);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		assertTrue(mRequested.contains(TAB_COUNT - 1));
+		assertTrue(mRequested.size() < TAB_COUNT / 2);
+	}
+}
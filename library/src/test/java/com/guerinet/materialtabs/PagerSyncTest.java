@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.app.Activity;
+import android.support.v4.view.ViewPager;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests keeping the tabs in sync with the {@link android.support.v4.view.PagerAdapter}
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PagerSyncTest {
+	private LinearLayout mRoot;
+	private TestPagerAdapter mAdapter;
+	private ViewPager mViewPager;
+	private TabLayout mTabLayout;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.setupActivity(Activity.class);
+		mAdapter = new TestPagerAdapter("A", "B", "C", "D");
+		mViewPager = new ViewPager(activity);
+		mViewPager.setAdapter(mAdapter);
+		mViewPager.setCurrentItem(2, false);
+		mTabLayout = new TabLayout(activity);
+		mTabLayout.setViewPager(mViewPager);
+
+		mRoot = new LinearLayout(activity);
+		mRoot.setOrientation(LinearLayout.VERTICAL);
+		mRoot.addView(mTabLayout);
+		mRoot.addView(mViewPager);
+		activity.setContentView(mRoot);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+	}
+
+	/**
+	 * Removing a page before the current one moves the selection with the current page, once
+	 * the {@link ViewPager} has processed the change
+	 */
+	@Test
+	public void removePageBeforeCurrent() {
+		mAdapter.getTitles().remove(0);
+		mAdapter.notifyDataSetChanged();
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+		assertEquals(1, mViewPager.getCurrentItem());
+		assertTabs("B", "C", "D");
+		assertSelected(1);
+	}
+
+	/**
+	 * The adapter is not observed while the tabs are detached, and the tabs catch up with its
+	 * changes when they are attached again
+	 */
+	@Test
+	public void changesWhileDetached() {
+		mRoot.removeView(mTabLayout);
+		mAdapter.getTitles().add("E");
+		mAdapter.notifyDataSetChanged();
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		assertEquals(4, getTabCount());
+
+		mRoot.addView(mTabLayout, 0);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		assertTabs("A", "B", "C", "D", "E");
+		assertSelected(2);
+	}
+
+	/**
+	 * @return The number of tab views
+	 */
+	private int getTabCount() {
+		int count = 0;
+		while (mTabLayout.getTabView(count) != null) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Checks the titles of the tab views
+	 *
+	 * @param titles The expected titles
+	 */
+	private void assertTabs(String... titles) {
+		assertEquals(titles.length, getTabCount());
+		for (int i = 0; i < titles.length; i++) {
+			TextView tabView = (TextView) mTabLayout.getTabView(i);
+			assertEquals(titles[i], tabView.getText().toString());
+		}
+	}
+
+	/**
+	 * Checks that only the given tab is selected
+	 *
+	 * @param position The position of the selected tab
+	 */
+	private void assertSelected(int position) {
+		assertEquals(position, mTabLayout.getCurrentTab());
+		for (int i = 0; i < getTabCount(); i++) {
+			assertEquals(i == position, mTabLayout.getTabView(i).isSelected());
+		}
+	}
+}
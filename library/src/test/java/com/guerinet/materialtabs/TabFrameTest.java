@@ -0,0 +1,343 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the frames of page scrolls and tab clicks of a {@link TabLayout} following a
+ * {@link ViewPager}, and checks that they do not allocate, and that they lay out and redraw as
+ * many views whatever the number of tabs
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TabFrameTest {
+	/**
+	 * The numbers of tabs to compare
+	 */
+	private static final int[] TAB_COUNTS = {10, 50, 250};
+	/**
+	 * The number of frames of the drag from one page to the next
+	 */
+	private static final int DRAG_FRAMES = 20;
+	/**
+	 * The number of pages dragged through, and of tabs clicked
+	 */
+	private static final int PAGES = 5;
+	/**
+	 * The number of frames a tab click is followed for
+	 */
+	private static final int CLICK_FRAMES = 30;
+	/**
+	 * The duration of a frame, by which the main looper is advanced after every frame
+	 */
+	private static final long FRAME_MILLIS = 16;
+	/**
+	 * The size of the simulated screen
+	 */
+	private static final int WIDTH = 1080;
+	private static final int HEIGHT = 1920;
+
+	/**
+	 * The thread allocation counter
+	 */
+	private final com.sun.management.ThreadMXBean mThreadBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private final Canvas mCanvas =
+			new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+	private LinearLayout mRoot;
+	private ViewPager mViewPager;
+	private CountingTabLayout mTabLayout;
+	/**
+	 * The number of tab views redrawn
+	 */
+	private int mDraws;
+
+	/**
+	 * Dragging through the pages does not allocate more than dragging the {@link ViewPager}
+	 * alone, and lays out and redraws as much with any number of tabs
+	 */
+	@Test
+	public void pageScrollFrames() {
+		int layouts = -1;
+		int draws = -1;
+		for (int tabCount : TAB_COUNTS) {
+			setUp(tabCount, false);
+			drag();
+			mViewPager.setCurrentItem(0, false);
+			frame();
+			long baseline = allocatedBytes(new Runnable() {
+				@Override
+				public void run() {
+					drag();
+				}
+			});
+			mViewPager.setCurrentItem(0, false);
+			frame();
+
+			setUp(tabCount, true);
+			drag();
+			mViewPager.setCurrentItem(0, false);
+			frame();
+			mTabLayout.mLayouts = 0;
+			mDraws = 0;
+			long allocated = allocatedBytes(new Runnable() {
+				@Override
+				public void run() {
+					drag();
+				}
+			});
+
+			assertNoAllocations(allocated - baseline, PAGES * DRAG_FRAMES);
+			if (layouts == -1) {
+				layouts = mTabLayout.mLayouts;
+				draws = mDraws;
+			}
+			assertEquals("Layouts with " + tabCount + " tabs", layouts, mTabLayout.mLayouts);
+			assertEquals("Draws with " + tabCount + " tabs", draws, mDraws);
+		}
+	}
+
+	/**
+	 * Clicking tabs does not allocate more than selecting the pages of the {@link ViewPager}
+	 * alone, and lays out and redraws as much with any number of tabs
+	 */
+	@Test
+	public void tabClickFrames() {
+		int layouts = -1;
+		int draws = -1;
+		for (int tabCount : TAB_COUNTS) {
+			setUp(tabCount, false);
+			selectPages(false);
+			long baseline = allocatedBytes(new Runnable() {
+				@Override
+				public void run() {
+					selectPages(false);
+				}
+			});
+
+			setUp(tabCount, true);
+			selectPages(true);
+			mTabLayout.mLayouts = 0;
+			mDraws = 0;
+			long allocated = allocatedBytes(new Runnable() {
+				@Override
+				public void run() {
+					selectPages(true);
+				}
+			});
+
+			assertNoAllocations(allocated - baseline, 2 * PAGES * CLICK_FRAMES);
+			if (layouts == -1) {
+				layouts = mTabLayout.mLayouts;
+				draws = mDraws;
+			}
+			assertEquals("Layouts with " + tabCount + " tabs", layouts, mTabLayout.mLayouts);
+			assertEquals("Draws with " + tabCount + " tabs", draws, mDraws);
+		}
+	}
+
+	/**
+	 * Sets up a {@link ViewPager}, followed by a tab layout or by a listener that posts a frame
+	 * callback like the tab layout does, so that the allocations of the posting are the same
+	 *
+	 * @param tabCount The number of pages
+	 * @param withTabs True to follow the pages with a tab layout, false otherwise
+	 */
+	private void setUp(int tabCount, boolean withTabs) {
+		Activity activity = Robolectric.setupActivity(Activity.class);
+		List<String> titles = new ArrayList<>(tabCount);
+		for (int i = 0; i < tabCount; i++) {
+			titles.add("Tab " + i);
+		}
+		mViewPager = new ViewPager(activity);
+		mViewPager.setAdapter(new TestPagerAdapter(titles));
+
+		mRoot = new LinearLayout(activity);
+		mRoot.setOrientation(LinearLayout.VERTICAL);
+		if (withTabs) {
+			mTabLayout = new CountingTabLayout(activity);
+			mTabLayout.setViewPager(mViewPager);
+			mRoot.addView(mTabLayout);
+		} else {
+			mTabLayout = null;
+			mViewPager.setOnPageChangeListener(new FrameCallbackListener(mViewPager));
+		}
+		mRoot.addView(mViewPager);
+		activity.setContentView(mRoot);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		layout();
+
+		// The views only register their invalidations once they have been drawn
+		mRoot.draw(mCanvas);
+	}
+
+	/**
+	 * Drags through the pages, one frame at a time
+	 */
+	private void drag() {
+		for (int page = 0; page < PAGES; page++) {
+			mViewPager.beginFakeDrag();
+			for (int i = 0; i < DRAG_FRAMES - 1; i++) {
+				mViewPager.fakeDragBy(-WIDTH / DRAG_FRAMES);
+				frame();
+			}
+			mViewPager.endFakeDrag();
+			mViewPager.setCurrentItem(page + 1, false);
+			frame();
+		}
+	}
+
+	/**
+	 * Selects the next pages then goes back to the first one, by clicking their tabs or through
+	 * the {@link ViewPager}, and follows each smooth scroll
+	 *
+	 * @param withTabs True to click the tabs, false to select the pages directly
+	 */
+	private void selectPages(boolean withTabs) {
+		for (int i = 1; i <= 2 * PAGES; i++) {
+			int page = i <= PAGES ? i : 0;
+			if (withTabs) {
+				mTabLayout.getTabView(page).performClick();
+			} else {
+				mViewPager.setCurrentItem(page);
+			}
+			for (int frame = 0; frame < CLICK_FRAMES; frame++) {
+				frame();
+			}
+		}
+	}
+
+	/**
+	 * Runs a frame: what was posted to the main looper during the frame, the smooth scroll of
+	 * the {@link ViewPager}, the layout if one was requested, and the redraw of the tab views
+	 * that were invalidated
+	 */
+	private void frame() {
+		ShadowLooper.idleMainLooper(FRAME_MILLIS);
+		mViewPager.computeScroll();
+		if (mRoot.isLayoutRequested()) {
+			layout();
+		}
+
+		if (mTabLayout != null) {
+			View tabView;
+			for (int i = 0; (tabView = mTabLayout.getTabView(i)) != null; i++) {
+				if (tabView.isDirty()) {
+					mDraws++;
+					tabView.draw(mCanvas);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Measures and lays out the views on the simulated screen
+	 */
+	private void layout() {
+		mRoot.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+		mRoot.layout(0, 0, WIDTH, HEIGHT);
+	}
+
+	/**
+	 * @param frames The frames to run
+	 * @return The number of bytes the current thread allocated while running them
+	 */
+	private long allocatedBytes(Runnable frames) {
+		long threadId = Thread.currentThread().getId();
+		long start = mThreadBean.getThreadAllocatedBytes(threadId);
+		frames.run();
+		return mThreadBean.getThreadAllocatedBytes(threadId) - start;
+	}
+
+	/**
+	 * Checks that a number of frames allocated less than one byte per frame, which means that
+	 * none of them allocated any object
+	 *
+	 * @param bytes  The bytes allocated
+	 * @param frames The number of frames
+	 */
+	private static void assertNoAllocations(long bytes, int frames) {
+		assertTrue(bytes + " bytes allocated over " + frames + " frames", bytes < frames);
+	}
+
+	/**
+	 * Tab layout that counts its layouts
+	 */
+	private static class CountingTabLayout extends TabLayout {
+		private int mLayouts;
+
+		CountingTabLayout(Activity activity) {
+			super(activity);
+		}
+
+		@Override
+		protected void onLayout(boolean changed, int l, int t, int r, int b) {
+			mLayouts++;
+			super.onLayout(changed, l, t, r, b);
+		}
+	}
+
+	/**
+	 * Page listener that posts a frame callback on page scrolls, at most once per frame
+	 */
+	private static class FrameCallbackListener extends ViewPager.SimpleOnPageChangeListener
+			implements Runnable {
+		private final View mView;
+		private boolean mPosted;
+
+		FrameCallbackListener(View view) {
+			mView = view;
+		}
+
+		@Override
+		public void onPageScrolled(int position, float positionOffset,
+				int positionOffsetPixels) {
+			if (!mPosted) {
+				mPosted = true;
+				ViewCompat.postOnAnimation(mView, this);
+			}
+		}
+
+		@Override
+		public void run() {
+			mPosted = false;
+		}
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Times the paths of {@link TabLayout} that depend on Android, under Robolectric: building the
+ * tabs and following a page scroll sweep. Robolectric does not run the real rendering, so the
+ * times are only meant to be compared between revisions on the same machine. Every frame runs
+ * what the views posted to the main looper, like the scroll updates of the tab layout.
+ * It is left out of the tests, run it with the other benchmarks: ./gradlew benchmarks
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TabLayoutBenchmark {
+	/**
+	 * The numbers of tabs to build
+	 */
+	private static final int[] TAB_COUNTS = {10, 100, 1000};
+	/**
+	 * The number of runs before measuring
+	 */
+	private static final int WARM_UP_RUNS = 3;
+	/**
+	 * The number of measured runs
+	 */
+	private static final int RUNS = 10;
+	/**
+	 * The number of frames of the scroll from one page to the next
+	 */
+	private static final int SCROLL_FRAMES = 20;
+	/**
+	 * The maximum number of pages to scroll through
+	 */
+	private static final int SCROLL_PAGES = 50;
+	/**
+	 * The size of the simulated screen
+	 */
+	private static final int WIDTH = 1080;
+	private static final int HEIGHT = 1920;
+	/**
+	 * The duration of a frame, by which the main looper is advanced after every frame
+	 */
+	private static final long FRAME_MILLIS = 16;
+
+	private static final TabLayout.Callback CALLBACK = new TabLayout.Callback() {
+		@Override
+		public void onTabSelected(int position) {}
+	};
+
+	/**
+	 * Times addTabs(), both with new tab views and when the existing tab views are reused
+	 */
+	@Test
+	public void addTabs() {
+		printHeader();
+		for (int tabCount : TAB_COUNTS) {
+			List<String> titles = getTitles(tabCount);
+			TabLayout tabLayout = new TabLayout(RuntimeEnvironment.application);
+
+			for (int i = 0; i < WARM_UP_RUNS; i++) {
+				tabLayout.clear();
+				tabLayout.addTabs(CALLBACK, titles);
+				frame(tabLayout);
+			}
+
+			// New tab views every time
+			long start = System.nanoTime();
+			for (int i = 0; i < RUNS; i++) {
+				tabLayout.clear();
+				tabLayout.addTabs(CALLBACK, titles);
+				frame(tabLayout);
+			}
+			print("addTabs", tabCount, System.nanoTime() - start, RUNS);
+
+			// The tab views of the previous tabs are rebound
+			start = System.nanoTime();
+			for (int i = 0; i < RUNS; i++) {
+				tabLayout.addTabs(CALLBACK, titles);
+				frame(tabLayout);
+			}
+			print("addTabs reuse", tabCount, System.nanoTime() - start, RUNS);
+
+			assertNotNull(tabLayout.getTabView(tabCount - 1));
+		}
+	}
+
+	/**
+	 * Times the frames of a drag through the pages of a {@link ViewPager}
+	 */
+	@Test
+	public void pageScrollSweep() {
+		printHeader();
+		for (int tabCount : TAB_COUNTS) {
+			ViewPager viewPager = new ViewPager(RuntimeEnvironment.application);
+			viewPager.setAdapter(new Adapter(tabCount));
+			TabLayout tabLayout = new TabLayout(RuntimeEnvironment.application);
+			tabLayout.setViewPager(viewPager);
+			layout(viewPager);
+			layout(tabLayout);
+
+			int pages = Math.min(tabCount - 1, SCROLL_PAGES);
+			sweep(viewPager, tabLayout, Math.min(pages, WARM_UP_RUNS));
+			viewPager.setCurrentItem(0, false);
+
+			long start = System.nanoTime();
+			sweep(viewPager, tabLayout, pages);
+			print("page scroll", tabCount, System.nanoTime() - start, pages * SCROLL_FRAMES);
+
+			assertEquals(pages, tabLayout.getCurrentTab());
+		}
+	}
+
+	/**
+	 * Drags through the given number of pages, one frame at a time
+	 *
+	 * @param viewPager The {@link ViewPager}
+	 * @param tabLayout The {@link TabLayout} following it
+	 * @param pages     The number of pages
+	 */
+	private static void sweep(ViewPager viewPager, TabLayout tabLayout, int pages) {
+		for (int page = 0; page < pages; page++) {
+			viewPager.beginFakeDrag();
+			for (int step = 0; step < SCROLL_FRAMES - 1; step++) {
+				viewPager.fakeDragBy(-WIDTH / SCROLL_FRAMES);
+				frame(tabLayout);
+			}
+			viewPager.endFakeDrag();
+			// Settle on the next page right away instead of animating
+			viewPager.setCurrentItem(page + 1, false);
+			frame(tabLayout);
+		}
+	}
+
+	/**
+	 * Runs a frame: what was posted to the main looper during the frame, then the layout
+	 *
+	 * @param view The view to lay out
+	 */
+	private static void frame(View view) {
+		ShadowLooper.idleMainLooper(FRAME_MILLIS);
+		layout(view);
+	}
+
+	/**
+	 * Measures and lays out a view on the simulated screen
+	 *
+	 * @param view The view
+	 */
+	private static void layout(View view) {
+		view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST));
+		view.layout(0, 0, WIDTH, view.getMeasuredHeight());
+	}
+
+	/**
+	 * @param count The number of titles
+	 * @return Titles of different lengths
+	 */
+	private static List<String> getTitles(int count) {
+		List<String> titles = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			titles.add(i % 3 == 0 ? "Tab " + i : "Longer tab title " + i);
+		}
+		return titles;
+	}
+
+	private static void printHeader() {
+		System.out.println(String.format("%-14s %6s %14s", "Benchmark", "Tabs", "Micros per op"));
+	}
+
+	/**
+	 * @param name      The benchmark name
+	 * @param tabCount  The number of tabs
+	 * @param nanos     The total time
+	 * @param ops       The number of operations timed
+	 */
+	private static void print(String name, int tabCount, long nanos, int ops) {
+		System.out.println(String.format("%-14s %6d %14.1f", name, tabCount,
+				nanos / 1000.0 / ops));
+	}
+
+	/**
+	 * Adapter with an empty page per tab
+	 */
+	private static class Adapter extends PagerAdapter {
+		private final List<String> mTitles;
+
+		Adapter(int count) {
+			mTitles = getTitles(count);
+		}
+
+		@Override
+		public int getCount() {
+			return mTitles.size();
+		}
+
+		@Override
+		public CharSequence getPageTitle(int position) {
+			return mTitles.get(position);
+		}
+
+		@Override
+		public Object instantiateItem(ViewGroup container, int position) {
+			View page = new View(container.getContext());
+			container.addView(page);
+			return page;
+		}
+
+		@Override
+		public void destroyItem(ViewGroup container, int position, Object object) {
+			container.removeView((View) object);
+		}
+
+		@Override
+		public boolean isViewFromObject(View view, Object object) {
+			return view == object;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the area {@link TabStrip} redraws when the indicator follows a page scroll
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TabStripInvalidateTest {
+	private static final int[] WIDTHS = {120, 180, 40, 260, 100};
+	private static final int HEIGHT = 48;
+
+	private TabStrip mTabStrip;
+	/**
+	 * The areas the strip invalidated
+	 */
+	private final List<Rect> mInvalidated = new ArrayList<>();
+	/**
+	 * The height of the band the indicator is drawn in
+	 */
+	private int mBandHeight;
+
+	@Before
+	public void setUp() {
+		mTabStrip = new TabStrip(RuntimeEnvironment.application) {
+			@Override
+			public void invalidate(int l, int t, int r, int b) {
+				mInvalidated.add(new Rect(l, t, r, b));
+				super.invalidate(l, t, r, b);
+			}
+		};
+
+		int width = 0;
+		for (int tabWidth : WIDTHS) {
+			View tab = new View(RuntimeEnvironment.application);
+			mTabStrip.addView(tab, new LinearLayout.LayoutParams(tabWidth,
+					LinearLayout.LayoutParams.MATCH_PARENT));
+			width += tabWidth;
+		}
+		mTabStrip.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+		mTabStrip.layout(0, 0, width, HEIGHT);
+
+		// The default indicator is 3dp thick, and there is no bottom border
+		mBandHeight = (int) (3 * RuntimeEnvironment.application.getResources()
+				.getDisplayMetrics().density);
+		mInvalidated.clear();
+	}
+
+	/**
+	 * Every frame of a page scroll only invalidates the band covered by the old and the new
+	 * indicator
+	 */
+	@Test
+	public void pageScroll() {
+		mTabStrip.onViewPagerPageChanged(0, 0.5f);
+		assertInvalidated(0, 210);
+
+		mTabStrip.onViewPagerPageChanged(1, 0f);
+		assertInvalidated(60, 300);
+
+		mTabStrip.onViewPagerPageChanged(1, 0.5f);
+		assertInvalidated(120, 320);
+
+		mTabStrip.onViewPagerPageChanged(3, 0f);
+		assertInvalidated(210, 600);
+	}
+
+	/**
+	 * Checks that the last frame invalidated exactly one area, in the indicator band
+	 *
+	 * @param left  The expected left of the area
+	 * @param right The expected right of the area
+	 */
+	private void assertInvalidated(int left, int right) {
+		assertEquals(1, mInvalidated.size());
+		assertEquals(new Rect(left, HEIGHT - mBandHeight, right, HEIGHT), mInvalidated.get(0));
+		mInvalidated.clear();
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.os.Parcelable;
+import android.util.SparseArray;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the {@link TabLayout.TabTransaction}s
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TabTransactionTest {
+	/**
+	 * The Id the state of the tab layouts is saved under
+	 */
+	private static final int TAB_LAYOUT_ID = 1;
+
+	private TabLayout mTabLayout;
+	/**
+	 * The positions the callback was called with
+	 */
+	private final List<Integer> mSelections = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		mTabLayout = new TabLayout(RuntimeEnvironment.application);
+		mTabLayout.addTabs(new TabLayout.Callback() {
+			@Override
+			public void onTabSelected(int position) {
+				mSelections.add(position);
+			}
+		}, 0, "A", "B");
+		mSelections.clear();
+	}
+
+	/**
+	 * Moves the first tab to the end twice, which goes back to the original order
+	 */
+	@Test
+	public void chainedMoves() {
+		mTabLayout.beginTransaction().moveTab(0, 1).commit();
+		assertTabs("B", "A");
+		assertEquals(1, mTabLayout.getCurrentTab());
+
+		mTabLayout.beginTransaction().moveTab(0, 1).commit();
+		assertTabs("A", "B");
+		assertEquals(0, mTabLayout.getCurrentTab());
+
+		// Clicking the second tab selects it
+		mTabLayout.getTabView(1).performClick();
+		assertEquals(Arrays.asList(1), mSelections);
+		assertEquals(1, mTabLayout.getCurrentTab());
+	}
+
+	/**
+	 * Moves and removes drawn tabs, which have no tab views
+	 */
+	@Test
+	public void drawOnlyTransaction() {
+		mTabLayout.setDrawOnly(true);
+		mTabLayout.addTabs(new TabLayout.Callback() {
+			@Override
+			public void onTabSelected(int position) {}
+		}, 0, "A", "B", "C");
+
+		mTabLayout.beginTransaction().moveTab(0, 2).removeTab(0).commit();
+		assertEquals(1, mTabLayout.getCurrentTab());
+		assertNull(mTabLayout.getTabView(0));
+	}
+
+	/**
+	 * Changes the tabs restored from the saved state before their callback is set
+	 */
+	@Test
+	public void restoredTabsTransaction() {
+		mTabLayout = restore(mTabLayout);
+
+		mTabLayout.beginTransaction().addTab("C").removeTab(0).commit();
+		assertTabs("B", "C");
+
+		// The callback set afterwards is called for the changed tabs
+		mTabLayout.setCallback(new TabLayout.Callback() {
+			@Override
+			public void onTabSelected(int position) {
+				mSelections.add(position);
+			}
+		});
+		mTabLayout.getTabView(1).performClick();
+		assertEquals(Arrays.asList(1), mSelections);
+	}
+
+	/**
+	 * Restoring another tab than the one selected when the tabs were added again calls the
+	 * callback, restoring the same one does not
+	 */
+	@Test
+	public void restoredSelection() {
+		mTabLayout.getTabView(1).performClick();
+		SparseArray<Parcelable> state = save(mTabLayout);
+
+		mTabLayout = addTabs(0);
+		mTabLayout.restoreHierarchyState(state);
+		assertEquals(1, mTabLayout.getCurrentTab());
+		assertEquals(Arrays.asList(1), mSelections);
+
+		mSelections.clear();
+		mTabLayout = addTabs(1);
+		mTabLayout.restoreHierarchyState(state);
+		assertEquals(1, mTabLayout.getCurrentTab());
+		assertEquals(0, mSelections.size());
+	}
+
+	/**
+	 * @param initialTab The initial tab selected
+	 * @return A new tab layout with the same tabs as the one of the set up
+	 */
+	private TabLayout addTabs(int initialTab) {
+		TabLayout tabLayout = new TabLayout(RuntimeEnvironment.application);
+		tabLayout.setId(TAB_LAYOUT_ID);
+		tabLayout.addTabs(new TabLayout.Callback() {
+			@Override
+			public void onTabSelected(int position) {
+				mSelections.add(position);
+			}
+		}, initialTab, "A", "B");
+		mSelections.clear();
+		return tabLayout;
+	}
+
+	/**
+	 * @param tabLayout The tab layout
+	 * @return Its saved state
+	 */
+	private static SparseArray<Parcelable> save(TabLayout tabLayout) {
+		SparseArray<Parcelable> state = new SparseArray<>();
+		tabLayout.setId(TAB_LAYOUT_ID);
+		tabLayout.saveHierarchyState(state);
+		return state;
+	}
+
+	/**
+	 * Saves the state of a tab layout, and restores it in a new one without tabs
+	 *
+	 * @param tabLayout The tab layout
+	 * @return The new tab layout
+	 */
+	private static TabLayout restore(TabLayout tabLayout) {
+		SparseArray<Parcelable> state = save(tabLayout);
+		TabLayout restored = new TabLayout(RuntimeEnvironment.application);
+		restored.setId(TAB_LAYOUT_ID);
+		restored.restoreHierarchyState(state);
+		return restored;
+	}
+
+	/**
+	 * Checks the titles and the positions of the tab views
+	 *
+	 * @param titles The expected titles
+	 */
+	private void assertTabs(String... titles) {
+		for (int i = 0; i < titles.length; i++) {
+			TextView tabView = (TextView) mTabLayout.getTabView(i);
+			assertEquals(titles[i], tabView.getText().toString());
+			assertEquals(i, tabView.getTag(R.id.tab_index));
+		}
+	}
+}
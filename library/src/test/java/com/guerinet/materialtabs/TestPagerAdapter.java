@@ -0,0 +1,82 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.support.v4.view.PagerAdapter;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link PagerAdapter} with an empty page per title, whose titles can be changed by the tests
+ */
+class TestPagerAdapter extends PagerAdapter {
+	private final List<String> mTitles;
+
+	TestPagerAdapter(String... titles) {
+		this(Arrays.asList(titles));
+	}
+
+	TestPagerAdapter(List<String> titles) {
+		mTitles = new ArrayList<>(titles);
+	}
+
+	/**
+	 * @return The titles, which can be changed before calling {@link #notifyDataSetChanged()}
+	 */
+	List<String> getTitles() {
+		return mTitles;
+	}
+
+	@Override
+	public int getCount() {
+		return mTitles.size();
+	}
+
+	@Override
+	public CharSequence getPageTitle(int position) {
+		return mTitles.get(position);
+	}
+
+	@Override
+	public Object instantiateItem(ViewGroup container, int position) {
+		View page = new View(container.getContext());
+		page.setTag(mTitles.get(position));
+		container.addView(page);
+		return page;
+	}
+
+	@Override
+	public void destroyItem(ViewGroup container, int position, Object object) {
+		container.removeView((View) object);
+	}
+
+	@Override
+	public boolean isViewFromObject(View view, Object object) {
+		return view == object;
+	}
+
+	@Override
+	public int getItemPosition(Object object) {
+		// The pages follow their title
+		int position = mTitles.indexOf(((View) object).getTag());
+		return position != -1 ? position : POSITION_NONE;
+	}
+}
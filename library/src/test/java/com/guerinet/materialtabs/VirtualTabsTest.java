@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Julien Guerinet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.guerinet.materialtabs;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests swapping the virtualized tabs between tab views and placeholders while scrolling
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class VirtualTabsTest {
+	private static final int TAB_COUNT = 200;
+
+	private TabLayout mTabLayout;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.setupActivity(Activity.class);
+		mTabLayout = new TabLayout(activity);
+		mTabLayout.setVirtualized(true);
+		activity.setContentView(mTabLayout, new ViewGroup.LayoutParams(
+				ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+
+		List<String> titles = new ArrayList<>(TAB_COUNT);
+		for (int i = 0; i < TAB_COUNT; i++) {
+			titles.add("Tab " + i);
+		}
+		mTabLayout.addTabs(new TabLayout.Callback() {
+			@Override
+			public void onTabSelected(int position) {}
+		}, titles);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+	}
+
+	/**
+	 * The default tabs have the width of their estimate, so scrolling swaps them in place
+	 * without laying out the strip again, and the tabs keep their edges
+	 */
+	@Test
+	public void scrollSwapsTabsInPlace() {
+		int tab = TAB_COUNT / 2;
+		int left = mTabLayout.getTabLeft(tab);
+		int right = mTabLayout.getTabRight(tab);
+
+		mTabLayout.scrollTo(left, 0);
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+		assertFalse(mTabLayout.isLayoutRequested());
+		assertEquals(left, mTabLayout.getTabView(tab).getLeft());
+		assertEquals(right, mTabLayout.getTabView(tab).getRight());
+		assertEquals(left, mTabLayout.getScrollX());
+	}
+}